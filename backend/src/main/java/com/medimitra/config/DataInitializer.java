@@ -9,6 +9,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import java.math.BigDecimal;
+import java.util.Arrays;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -79,9 +80,8 @@ public class DataInitializer implements CommandLineRunner {
                 createMedicine("Loratadine 10mg", "Allergy", 95.0, "24-hour allergy relief", "HealthCare", 80)
             };
 
-            for (Medicine medicine : medicines) {
-                medicineRepository.save(medicine);
-            }
+            // Single transaction instead of one commit per medicine
+            medicineRepository.saveAll(Arrays.asList(medicines));
             System.out.println("✅ " + medicines.length + " medicines initialized");
         }
     }
@@ -4,13 +4,21 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class DatabaseConstraintFixer implements CommandLineRunner {
 
+    // Tables whose ids moved from identity columns to pooled sequences named <table>_seq
+    private static final String[] SEQUENCE_TABLES = { "orders", "order_items", "cart_items" };
+    private static final int ID_ALLOCATION_SIZE = 50;
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
     public void run(String... args) throws Exception {
         try {
@@ -24,5 +32,59 @@ public class DatabaseConstraintFixer implements CommandLineRunner {
         } catch (Exception e) {
             System.out.println("⚠️ Constraint already updated or error: " + e.getMessage());
         }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> enforceUniqueCarts());
+            System.out.println("✅ Cart uniqueness constraints in place");
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not enforce cart uniqueness: " + e.getMessage());
+        }
+
+        try {
+            // Briefly created for catalog imports, but it made the medicine API fail on duplicates
+            // and could not be built over existing ones; imports now match on name themselves
+            jdbcTemplate.execute("DROP INDEX IF EXISTS uk_medicines_name_manufacturer");
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not drop uk_medicines_name_manufacturer: " + e.getMessage());
+        }
+
+        for (String table : SEQUENCE_TABLES) {
+            try {
+                alignSequence(table);
+            } catch (Exception e) {
+                System.out.println("⚠️ Could not align " + table + "_seq: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rows created under the old identity ids must not collide with ids handed out
+     * from the sequence, so it is created here if Hibernate has not yet, and moved
+     * to at least the table's highest id. Hibernate's pooled optimizer then uses
+     * the block ending at the next value.
+     */
+    private void alignSequence(String table) {
+        String sequence = table + "_seq";
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + sequence + " START WITH 1 INCREMENT BY " + ID_ALLOCATION_SIZE);
+        jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table
+                + "), (SELECT last_value FROM " + sequence + ")))", Long.class);
+    }
+
+    /**
+     * One cart per user and one line per medicine in a cart. Older databases can
+     * hold duplicates, which would make Hibernate skip the unique constraints, so
+     * they are merged into the oldest cart and line first.
+     */
+    private void enforceUniqueCarts() {
+        jdbcTemplate.update("UPDATE cart_items SET cart_id = (SELECT MIN(k.id) FROM carts k WHERE k.user_id = "
+                + "(SELECT c.user_id FROM carts c WHERE c.id = cart_items.cart_id)) "
+                + "WHERE cart_id NOT IN (SELECT MIN(id) FROM carts GROUP BY user_id)");
+        jdbcTemplate.update("DELETE FROM carts WHERE id NOT IN (SELECT MIN(id) FROM carts GROUP BY user_id)");
+        jdbcTemplate.update("UPDATE cart_items SET quantity = (SELECT SUM(d.quantity) FROM cart_items d "
+                + "WHERE d.cart_id = cart_items.cart_id AND d.medicine_id = cart_items.medicine_id) "
+                + "WHERE id IN (SELECT MIN(id) FROM cart_items GROUP BY cart_id, medicine_id HAVING COUNT(*) > 1)");
+        jdbcTemplate.update("DELETE FROM cart_items WHERE id NOT IN (SELECT MIN(id) FROM cart_items GROUP BY cart_id, medicine_id)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_carts_user ON carts (user_id)");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_cart_items_cart_medicine ON cart_items (cart_id, medicine_id)");
     }
 }
@@ -1,13 +1,15 @@
 package com.medimitra.controller;
 
+import com.medimitra.dto.CartOperation;
 import com.medimitra.dto.CartRequest;
-import com.medimitra.model.Cart;
+import com.medimitra.dto.CartView;
 import com.medimitra.model.User;
 import com.medimitra.service.CartService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/cart")
@@ -17,26 +19,30 @@ public class CartController {
     private CartService cartService;
 
     @GetMapping
-    public ResponseEntity<Cart> getCart(@AuthenticationPrincipal User user) {
-        System.out.println("=== GET /api/cart ===");
-        System.out.println("User: " + (user != null ? "ID=" + user.getId() + ", Email=" + user.getEmail() : "NULL"));
-        Cart cart = cartService.getOrCreateCart(user);
-        System.out.println("Cart ID: " + cart.getId() + ", Items: " + (cart.getItems() != null ? cart.getItems().size() : 0));
-        return ResponseEntity.ok(cart);
+    public ResponseEntity<CartView> getCart(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(cartService.getCartView(user));
     }
 
     @PostMapping
-    public ResponseEntity<Cart> addToCart(@AuthenticationPrincipal User user, @RequestBody CartRequest request) {
+    public ResponseEntity<CartView> addToCart(@AuthenticationPrincipal User user, @RequestBody CartRequest request) {
         System.out.println("=== POST /api/cart ===");
         System.out.println("User: " + (user != null ? "ID=" + user.getId() + ", Email=" + user.getEmail() : "NULL"));
         System.out.println("Request: Medicine ID=" + request.getMedicineId() + ", Quantity=" + request.getQuantity());
-        Cart cart = cartService.addToCart(user, request);
+        CartView cart = cartService.addToCart(user, request);
         System.out.println("Cart after add: ID=" + cart.getId() + ", Items=" + (cart.getItems() != null ? cart.getItems().size() : 0));
         return ResponseEntity.ok(cart);
     }
 
+    // Several operations in one request, e.g. re-ordering a past order: [{op: add|set|remove, medicineId|itemId, quantity}]
+    @PatchMapping
+    public ResponseEntity<CartView> applyOperations(
+            @AuthenticationPrincipal User user,
+            @RequestBody List<CartOperation> operations) {
+        return ResponseEntity.ok(cartService.applyOperations(user, operations));
+    }
+
     @PutMapping("/{itemId}")
-    public ResponseEntity<Cart> updateCartItem(
+    public ResponseEntity<CartView> updateCartItem(
             @AuthenticationPrincipal User user,
             @PathVariable Long itemId,
             @RequestBody CartRequest request) {
@@ -44,7 +50,7 @@ public class CartController {
     }
 
     @DeleteMapping("/{itemId}")
-    public ResponseEntity<Cart> removeFromCart(
+    public ResponseEntity<CartView> removeFromCart(
             @AuthenticationPrincipal User user,
             @PathVariable Long itemId) {
         return ResponseEntity.ok(cartService.removeFromCart(user, itemId));
@@ -1,8 +1,10 @@
 package com.medimitra.controller;
 
+import com.medimitra.dto.CacheStats;
 import com.medimitra.dto.DailyRevenue;
 import com.medimitra.dto.DashboardStats;
 import com.medimitra.service.DashboardService;
+import com.medimitra.service.MedicineService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -15,6 +17,9 @@ public class DashboardController {
     @Autowired
     private DashboardService dashboardService;
 
+    @Autowired
+    private MedicineService medicineService;
+
     @GetMapping("/stats")
     public ResponseEntity<DashboardStats> getDashboardStats() {
         return ResponseEntity.ok(dashboardService.getDashboardStats());
@@ -24,4 +29,9 @@ public class DashboardController {
     public ResponseEntity<List<DailyRevenue>> getLast7DaysRevenue() {
         return ResponseEntity.ok(dashboardService.getLast7DaysRevenue());
     }
+
+    @GetMapping("/catalog-cache")
+    public ResponseEntity<CacheStats> getCatalogCacheStats() {
+        return ResponseEntity.ok(medicineService.getCacheStats());
+    }
 }
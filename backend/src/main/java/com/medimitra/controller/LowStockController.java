@@ -0,0 +1,29 @@
+package com.medimitra.controller;
+
+import com.medimitra.dto.LowStockPage;
+import com.medimitra.model.User;
+import com.medimitra.service.MedicineService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/low-stock")
+public class LowStockController {
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @GetMapping
+    public ResponseEntity<LowStockPage> getLowStock(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "50") int limit) {
+        // Only admin can see the watchlist
+        if (user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(medicineService.getLowStock(offset, limit));
+    }
+}
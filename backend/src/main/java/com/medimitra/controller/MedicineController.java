@@ -1,11 +1,36 @@
 package com.medimitra.controller;
 
+import com.medimitra.dto.ImportResult;
+import com.medimitra.dto.MedicineChanges;
+import com.medimitra.dto.MedicineFacets;
+import com.medimitra.dto.MedicineFilterPage;
+import com.medimitra.dto.MedicinePage;
+import com.medimitra.dto.MedicineSuggestion;
+import com.medimitra.dto.StockAdjustment;
+import com.medimitra.dto.StockAdjustmentResult;
 import com.medimitra.model.Medicine;
+import com.medimitra.model.User;
+import com.medimitra.service.CatalogVersion;
+import com.medimitra.service.ExportService;
+import com.medimitra.service.MedicineImportService;
 import com.medimitra.service.MedicineService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/medicines")
@@ -14,24 +39,104 @@ public class MedicineController {
     @Autowired
     private MedicineService medicineService;
 
+    @Autowired
+    private MedicineImportService medicineImportService;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     @GetMapping
-    public ResponseEntity<List<Medicine>> getAllMedicines() {
-        return ResponseEntity.ok(medicineService.getAllMedicines());
+    public ResponseEntity<List<Medicine>> getAllMedicines(WebRequest request) {
+        return conditional(request, () -> medicineService.getAllMedicines());
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<MedicinePage> getMedicinePage(
+            @RequestParam(required = false) String after,
+            @RequestParam int limit,
+            @RequestParam(defaultValue = "id") String sort,
+            WebRequest request) {
+        return conditional(request, () -> medicineService.getMedicinePage(after, limit, sort));
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<MedicineFilterPage> filterMedicines(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit,
+            WebRequest request) {
+        return conditional(request, () -> medicineService.filterMedicines(minPrice, maxPrice, inStock, category, sort, offset, limit));
+    }
+
+    /**
+     * Delta sync for local catalog replicas. Deliberately not conditional: the sync
+     * lag window moves with time, so the same URL can return more rows later.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<MedicineChanges> getChanges(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(medicineService.getChangesSince(since, after, limit));
+    }
+
+    @GetMapping("/batch")
+    public ResponseEntity<List<Medicine>> getMedicinesByIds(@RequestParam List<Long> ids, WebRequest request) {
+        return conditional(request, () -> medicineService.getMedicinesByIds(ids));
+    }
+
+    // Same as GET /batch, for id lists too long for a query string
+    @PostMapping("/batch")
+    public ResponseEntity<List<Medicine>> postMedicinesByIds(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(medicineService.getMedicinesByIds(ids));
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Medicine> getMedicineById(@PathVariable Long id) {
-        return ResponseEntity.ok(medicineService.getMedicineById(id));
+    public ResponseEntity<Medicine> getMedicineById(@PathVariable Long id, WebRequest request) {
+        return conditional(request, () -> medicineService.getMedicineById(id));
+    }
+
+    @GetMapping("/{id}/substitutes")
+    public ResponseEntity<List<Medicine>> getSubstitutes(@PathVariable Long id, WebRequest request) {
+        return conditional(request, () -> medicineService.getSubstitutes(id));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Medicine>> searchMedicines(@RequestParam String query) {
-        return ResponseEntity.ok(medicineService.searchMedicines(query));
+    public ResponseEntity<List<Medicine>> searchMedicines(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "false") boolean fuzzy,
+            WebRequest request) {
+        return conditional(request, () -> medicineService.searchMedicines(query, fuzzy));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MedicineSuggestion>> suggestMedicines(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit,
+            WebRequest request) {
+        return conditional(request, () -> medicineService.suggestMedicines(prefix, limit));
+    }
+
+    @GetMapping("/facets")
+    public ResponseEntity<MedicineFacets> getFacets(
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String manufacturer,
+            @RequestParam(required = false) Boolean prescriptionRequired,
+            WebRequest request) {
+        return conditional(request, () -> medicineService.getFacets(category, type, manufacturer, prescriptionRequired));
     }
 
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<Medicine>> getMedicinesByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(medicineService.getMedicinesByCategory(category));
+    public ResponseEntity<List<Medicine>> getMedicinesByCategory(@PathVariable String category, WebRequest request) {
+        return conditional(request, () -> medicineService.getMedicinesByCategory(category));
     }
 
     @PostMapping
@@ -39,6 +144,53 @@ public class MedicineController {
         return ResponseEntity.ok(medicineService.createMedicine(medicine));
     }
 
+    /**
+     * Bulk import streamed from the raw request body. The format comes from ?format=
+     * or, failing that, the Content-Type (text/csv, otherwise NDJSON).
+     */
+    @PostMapping("/import")
+    public ResponseEntity<ImportResult> importMedicines(
+            @AuthenticationPrincipal User user,
+            HttpServletRequest request,
+            @RequestParam(required = false) String format) throws IOException {
+        // Only admin can import the catalog
+        if (user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        if (format == null) {
+            String contentType = request.getContentType();
+            format = contentType != null && contentType.contains("csv")
+                    ? MedicineImportService.FORMAT_CSV : MedicineImportService.FORMAT_NDJSON;
+        }
+        return ResponseEntity.ok(medicineImportService.importMedicines(request.getInputStream(), format));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMedicines(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        // Only admin can export the catalog
+        if (user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=medicines." + format)
+                .body(out -> exportService.exportMedicines(out, format));
+    }
+
+    // Bulk reconciliation: JSON array of {id, delta} or {id, stock}
+    @PutMapping("/stock")
+    public ResponseEntity<StockAdjustmentResult> adjustStock(
+            @AuthenticationPrincipal User user,
+            @RequestBody List<StockAdjustment> adjustments) {
+        // Only admin can reconcile stock
+        if (user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(medicineService.adjustStock(adjustments));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<Medicine> updateMedicine(@PathVariable Long id, @RequestBody Medicine medicine) {
         return ResponseEntity.ok(medicineService.updateMedicine(id, medicine));
@@ -46,14 +198,26 @@ public class MedicineController {
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteMedicine(@PathVariable Long id) {
-        medicineService.deleteMedicine(id);
+        if (!medicineService.deleteMedicine(id)) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.noContent().build();
     }
 
     @PutMapping("/{id}/stock")
     public ResponseEntity<Medicine> updateMedicineStock(@PathVariable Long id, @RequestParam int stock) {
-        Medicine medicine = medicineService.getMedicineById(id);
-        medicine.setStock(stock);
-        return ResponseEntity.ok(medicineService.updateMedicine(id, medicine));
+        return ResponseEntity.ok(medicineService.updateMedicineStock(id, stock));
+    }
+
+    /**
+     * Serves a catalog read with the current catalog version as a strong ETag. A
+     * matching If-None-Match is answered with 304 before the body is loaded.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = catalogVersion.medicineETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
     }
 }
@@ -3,12 +3,17 @@ package com.medimitra.controller;
 import com.medimitra.dto.CheckoutRequest;
 import com.medimitra.model.Order;
 import com.medimitra.model.User;
+import com.medimitra.service.CheckoutIdempotencyService;
+import com.medimitra.service.ExportService;
 import com.medimitra.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 
 @RestController
@@ -18,6 +23,12 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private CheckoutIdempotencyService checkoutIdempotencyService;
+
     @GetMapping
     @Transactional(readOnly = true)
     public ResponseEntity<List<Order>> getUserOrders(@AuthenticationPrincipal User user) {
@@ -38,6 +49,20 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders());
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @AuthenticationPrincipal User user,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        // Only admin can export orders
+        if (user.getRole() != User.Role.ADMIN) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(ExportService.contentType(format)))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=orders." + format)
+                .body(out -> exportService.exportOrders(out, format));
+    }
+
     @GetMapping("/{orderId}")
     @Transactional(readOnly = true)
     public ResponseEntity<Order> getOrderById(
@@ -49,11 +74,13 @@ public class OrderController {
     @PostMapping("/checkout")
     public ResponseEntity<Order> checkout(
             @AuthenticationPrincipal User user,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody CheckoutRequest request) {
         System.out.println("=== POST /api/orders/checkout ===");
         System.out.println("User: " + (user != null ? "ID=" + user.getId() + ", Email=" + user.getEmail() : "NULL"));
         System.out.println("Request: AddressID=" + request.getAddressId() + ", PaymentMethod=" + request.getPaymentMethod());
-        Order order = orderService.checkout(user, request);
+        // Retries with the same Idempotency-Key get the original order back
+        Order order = checkoutIdempotencyService.checkout(user, idempotencyKey, request);
         System.out.println("Order created: ID=" + order.getId() + ", Status=" + order.getStatus());
         return ResponseEntity.ok(order);
     }
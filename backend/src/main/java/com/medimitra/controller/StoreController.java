@@ -1,11 +1,18 @@
 package com.medimitra.controller;
 
+import com.medimitra.dto.StoreInventoryItem;
 import com.medimitra.model.Store;
+import com.medimitra.service.CatalogVersion;
+import com.medimitra.service.StoreInventoryService;
 import com.medimitra.service.StoreService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/stores")
@@ -14,29 +21,48 @@ public class StoreController {
     @Autowired
     private StoreService storeService;
 
+    @Autowired
+    private StoreInventoryService storeInventoryService;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
     @GetMapping
-    public ResponseEntity<List<Store>> getAllStores() {
-        return ResponseEntity.ok(storeService.getAllStores());
+    public ResponseEntity<List<Store>> getAllStores(WebRequest request) {
+        return conditional(request, storeService::getAllStores);
     }
 
     @GetMapping("/active")
-    public ResponseEntity<List<Store>> getActiveStores() {
-        return ResponseEntity.ok(storeService.getActiveStores());
+    public ResponseEntity<List<Store>> getActiveStores(WebRequest request) {
+        return conditional(request, storeService::getActiveStores);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<Store> getStoreById(@PathVariable Long id) {
-        return ResponseEntity.ok(storeService.getStoreById(id));
+    public ResponseEntity<Store> getStoreById(@PathVariable Long id, WebRequest request) {
+        return conditional(request, () -> storeService.getStoreById(id));
     }
 
     @GetMapping("/city/{city}")
-    public ResponseEntity<List<Store>> getStoresByCity(@PathVariable String city) {
-        return ResponseEntity.ok(storeService.getStoresByCity(city));
+    public ResponseEntity<List<Store>> getStoresByCity(@PathVariable String city, WebRequest request) {
+        return conditional(request, () -> storeService.getStoresByCity(city));
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<Store>> searchStores(@RequestParam String name) {
-        return ResponseEntity.ok(storeService.searchStores(name));
+    public ResponseEntity<List<Store>> searchStores(@RequestParam String name, WebRequest request) {
+        return conditional(request, () -> storeService.searchStores(name));
+    }
+
+    // Not conditional: orders change inventory without touching the store version
+    @GetMapping("/{id}/inventory")
+    public ResponseEntity<List<StoreInventoryItem>> getInventory(@PathVariable Long id) {
+        return ResponseEntity.ok(storeInventoryService.getInventory(id));
+    }
+
+    @PutMapping("/{id}/inventory")
+    public ResponseEntity<List<StoreInventoryItem>> updateInventory(
+            @PathVariable Long id,
+            @RequestBody List<StoreInventoryItem> items) {
+        return ResponseEntity.ok(storeInventoryService.updateInventory(id, items));
     }
 
     @PostMapping
@@ -62,6 +88,18 @@ public class StoreController {
         return ResponseEntity.noContent().build();
     }
     
+    /**
+     * Serves a store read with the store list version as a strong ETag. A matching
+     * If-None-Match is answered with 304 before the body is loaded.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, Supplier<T> body) {
+        String etag = catalogVersion.storeETag();
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache()).body(body.get());
+    }
+
     static class StoreCredentialsRequest {
         private String email;
         private String password;
@@ -0,0 +1,17 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStats {
+    private Long hits;
+    private Long misses;
+    private Long evictions;
+    private Integer size;
+    private Integer maxEntries;
+    private Double hitRatio;
+}
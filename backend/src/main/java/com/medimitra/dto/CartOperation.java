@@ -0,0 +1,21 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    public static final String ADD = "add";
+    public static final String SET = "set";
+    public static final String REMOVE = "remove";
+
+    // add: increase by quantity; set: replace with quantity (0 removes); remove
+    private String op;
+    // The line is addressed by medicine id, or by cart item id for set/remove
+    private Long medicineId;
+    private Long itemId;
+    private Integer quantity;
+}
@@ -0,0 +1,87 @@
+package com.medimitra.dto;
+
+import com.medimitra.model.Cart;
+import com.medimitra.model.CartItem;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact cart for the API: medicine summaries and precomputed totals, without the
+ * owning user.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartView {
+    private Long id;
+    private List<Item> items = new ArrayList<>();
+    // Sum of quantities
+    private int itemCount;
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    public static CartView from(Cart cart) {
+        CartView view = new CartView();
+        view.setId(cart.getId());
+        for (CartItem item : cart.getItems()) {
+            view.add(new Item(item.getId(), MedicineSummary.from(item.getMedicine()), item.getQuantity(),
+                    item.getMedicine().getPrice().multiply(BigDecimal.valueOf(item.getQuantity()))));
+        }
+        return view;
+    }
+
+    /** Builds the view from {@link Row}s; a cart without items has one row with a null item. */
+    public static CartView fromRows(List<Row> rows) {
+        CartView view = new CartView();
+        for (Row row : rows) {
+            view.setId(row.getCartId());
+            if (row.getItemId() != null) {
+                MedicineSummary medicine = new MedicineSummary(row.getMedicineId(), row.getName(), row.getPrice(),
+                        row.getStock(), row.getCategory(), row.getManufacturer(), row.getImageUrl(), row.getSalt(),
+                        row.getType(), row.getPrescriptionRequired());
+                view.add(new Item(row.getItemId(), medicine, row.getQuantity(),
+                        row.getPrice().multiply(BigDecimal.valueOf(row.getQuantity()))));
+            }
+        }
+        return view;
+    }
+
+    public void add(Item item) {
+        items.add(item);
+        itemCount += item.getQuantity();
+        totalAmount = totalAmount.add(item.getLineTotal());
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long id;
+        private MedicineSummary medicine;
+        private Integer quantity;
+        private BigDecimal lineTotal;
+    }
+
+    /** Flat projection row of the cart view query, see CartRepository. */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long cartId;
+        private Long itemId;
+        private Integer quantity;
+        private Long medicineId;
+        private String name;
+        private BigDecimal price;
+        private Integer stock;
+        private String category;
+        private String manufacturer;
+        private String imageUrl;
+        private String salt;
+        private String type;
+        private Boolean prescriptionRequired;
+    }
+}
@@ -0,0 +1,17 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockItem {
+    private Long id;
+    private String name;
+    private String category;
+    private Integer stock;
+    // The medicine is listed while stock is below this
+    private Integer threshold;
+}
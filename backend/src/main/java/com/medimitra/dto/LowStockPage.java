@@ -0,0 +1,17 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockPage {
+    // Lowest stock first
+    private List<LowStockItem> items;
+    private Integer total;
+    private Integer offset;
+    private Integer limit;
+}
@@ -0,0 +1,22 @@
+package com.medimitra.dto;
+
+import com.medimitra.model.Medicine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineChanges {
+    // Created or updated since the cursor; replace the local copy by id
+    private List<Medicine> upserts;
+    private List<Long> deletedIds;
+    // Pass back as ?since=&after= on the next sync
+    private LocalDateTime nextSince;
+    private Long nextAfter;
+    // True when the limit was hit; call again straight away with the new cursor
+    private boolean hasMore;
+}
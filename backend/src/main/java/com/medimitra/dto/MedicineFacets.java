@@ -0,0 +1,21 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+/**
+ * Browse facet counts. Each dimension is counted with every filter applied except
+ * its own, so the UI can show how many results picking another value would give.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineFacets {
+    private Integer total;
+    private Map<String, Integer> categories;
+    private Map<String, Integer> types;
+    private Map<String, Integer> manufacturers;
+    private Map<Boolean, Integer> prescriptionRequired;
+}
@@ -0,0 +1,17 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineFilterPage {
+    private List<MedicineSummary> items;
+    // Number of medicines matching the filter across all pages
+    private Integer total;
+    private Integer offset;
+    private Integer limit;
+}
@@ -0,0 +1,15 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicinePage {
+    private List<MedicineSummary> items;
+    // Pass back as ?after= to fetch the next page; null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,15 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineSuggestion {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+}
@@ -0,0 +1,32 @@
+package com.medimitra.dto;
+
+import com.medimitra.model.Medicine;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * List view of a medicine without the TEXT description, used by browse pages.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineSummary {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private Integer stock;
+    private String category;
+    private String manufacturer;
+    private String imageUrl;
+    private String salt;
+    private String type;
+    private Boolean prescriptionRequired;
+
+    public static MedicineSummary from(Medicine medicine) {
+        return new MedicineSummary(medicine.getId(), medicine.getName(), medicine.getPrice(), medicine.getStock(),
+                medicine.getCategory(), medicine.getManufacturer(), medicine.getImageUrl(), medicine.getSalt(),
+                medicine.getType(), medicine.getPrescriptionRequired());
+    }
+}
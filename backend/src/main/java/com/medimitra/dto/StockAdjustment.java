@@ -0,0 +1,15 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustment {
+    private Long id;
+    // Exactly one of these: a relative change (e.g. +24 after a delivery) or the new absolute stock
+    private Integer delta;
+    private Integer stock;
+}
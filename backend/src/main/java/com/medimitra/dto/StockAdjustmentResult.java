@@ -0,0 +1,28 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAdjustmentResult {
+    private int updated;
+    private int failed;
+    // One entry per request row, in request order
+    private List<Row> results = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Row {
+        private Long id;
+        private boolean success;
+        // Stock after the whole request was applied; null when the row failed
+        private Integer stock;
+        private String error;
+    }
+}
@@ -0,0 +1,13 @@
+package com.medimitra.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreInventoryItem {
+    private Long medicineId;
+    private Integer quantity;
+}
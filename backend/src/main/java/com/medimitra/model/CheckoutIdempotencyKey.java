@@ -0,0 +1,38 @@
+package com.medimitra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * An Idempotency-Key a user has completed a checkout with, and the order it
+ * created. The unique constraint is what stops two nodes from running the same
+ * checkout twice.
+ */
+@Entity
+@Table(name = "checkout_idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_checkout_idempotency_user_key",
+                columnNames = { "user_id", "idempotency_key" }),
+        indexes = @Index(name = "idx_checkout_idempotency_created_at", columnList = "created_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutIdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -8,7 +8,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "medicines")
+@Table(name = "medicines", indexes = {
+        @Index(name = "idx_medicines_name_id", columnList = "name, id"),
+        @Index(name = "idx_medicines_price_id", columnList = "price, id"),
+        @Index(name = "idx_medicines_updated_at_id", columnList = "updated_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -58,4 +62,13 @@ public class Medicine {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+
+    /**
+     * Detached copy used by the in-memory catalog indexes, so later changes to
+     * this (possibly managed) instance never leak into an index.
+     */
+    public Medicine copy() {
+        return new Medicine(id, name, description, price, stock, category, manufacturer, imageUrl,
+                salt, type, prescriptionRequired, createdAt, updatedAt);
+    }
 }
@@ -0,0 +1,27 @@
+package com.medimitra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a hard-deleted medicine so delta sync clients can drop it from their
+ * local replica.
+ */
+@Entity
+@Table(name = "medicine_tombstones", indexes = {
+        @Index(name = "idx_medicine_tombstones_deleted_at", columnList = "deleted_at, medicine_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MedicineTombstone {
+    @Id
+    @Column(name = "medicine_id")
+    private Long medicineId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
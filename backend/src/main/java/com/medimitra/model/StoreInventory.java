@@ -0,0 +1,43 @@
+package com.medimitra.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Stock of one medicine at one store. Medicine.stock stays the catalog-wide
+ * total; these rows decide which store an order can be routed to.
+ */
+@Entity
+@Table(name = "store_inventory",
+        uniqueConstraints = @UniqueConstraint(name = "uk_store_inventory_store_medicine",
+                columnNames = { "store_id", "medicine_id" }),
+        indexes = @Index(name = "idx_store_inventory_medicine_store", columnList = "medicine_id, store_id, quantity"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoreInventory {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "medicine_id", nullable = false)
+    private Long medicineId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+}
@@ -1,12 +1,27 @@
 package com.medimitra.repository;
 
+import com.medimitra.dto.CartView;
 import com.medimitra.model.Cart;
 import com.medimitra.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUser(User user);
+
+    // Cart, user, items and their medicines in one query
+    @Query("select distinct c from Cart c join fetch c.user left join fetch c.items i left join fetch i.medicine "
+            + "where c.user = :user")
+    Optional<Cart> findWithItemsByUser(@Param("user") User user);
+
+    // Read-only cart view in one query, without loading entities
+    @Query("select new com.medimitra.dto.CartView$Row(c.id, i.id, i.quantity, m.id, m.name, m.price, m.stock, "
+            + "m.category, m.manufacturer, m.imageUrl, m.salt, m.type, m.prescriptionRequired) "
+            + "from Cart c left join c.items i left join i.medicine m where c.user.id = :userId order by i.id")
+    List<CartView.Row> findViewRowsByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,30 @@
+package com.medimitra.repository;
+
+import com.medimitra.model.CheckoutIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CheckoutIdempotencyKeyRepository extends JpaRepository<CheckoutIdempotencyKey, Long> {
+
+    Optional<CheckoutIdempotencyKey> findByUserIdAndIdempotencyKeyAndCreatedAtAfter(Long userId, String idempotencyKey,
+                                                                                   LocalDateTime after);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CheckoutIdempotencyKey k where k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Transactional
+    @Query("delete from CheckoutIdempotencyKey k where k.userId = :userId and k.idempotencyKey = :idempotencyKey "
+            + "and k.createdAt <= :before")
+    int deleteExpired(@Param("userId") Long userId, @Param("idempotencyKey") String idempotencyKey,
+                      @Param("before") LocalDateTime before);
+}
@@ -1,12 +1,55 @@
 package com.medimitra.repository;
 
+import com.medimitra.dto.MedicineSuggestion;
+import com.medimitra.dto.MedicineSummary;
 import com.medimitra.model.Medicine;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface MedicineRepository extends JpaRepository<Medicine, Long> {
+    String SUMMARY = "select new com.medimitra.dto.MedicineSummary(m.id, m.name, m.price, m.stock, m.category, "
+            + "m.manufacturer, m.imageUrl, m.salt, m.type, m.prescriptionRequired) from Medicine m ";
+
     List<Medicine> findByNameContainingIgnoreCase(String name);
     List<Medicine> findByCategory(String category);
+    List<Medicine> findBySaltIgnoreCaseAndIdNotOrderByPriceAsc(String salt, Long id);
+
+    // Keyset pages on (sort value, id) of the last row of the previous page. The cursor carries
+    // both, so it stays valid when that row is changed or deleted; the row value comparison is
+    // a single range scan on idx_medicines_name_id / idx_medicines_price_id
+    @Query(SUMMARY + "where m.id > :after order by m.id")
+    List<MedicineSummary> findSummariesAfterId(@Param("after") Long after, Pageable pageable);
+
+    @Query(SUMMARY + "order by m.name, m.id")
+    List<MedicineSummary> findSummariesByName(Pageable pageable);
+
+    @Query(SUMMARY + "where (m.name, m.id) > (:name, :id) order by m.name, m.id")
+    List<MedicineSummary> findSummariesByNameAfter(@Param("name") String name, @Param("id") Long id,
+                                                   Pageable pageable);
+
+    @Query(SUMMARY + "order by m.price, m.id")
+    List<MedicineSummary> findSummariesByPrice(Pageable pageable);
+
+    @Query(SUMMARY + "where (m.price, m.id) > (:price, :id) order by m.price, m.id")
+    List<MedicineSummary> findSummariesByPriceAfter(@Param("price") BigDecimal price, @Param("id") Long id,
+                                                    Pageable pageable);
+
+    // Typeahead while the catalog indexes are not built; the prefix is lowercased and escaped by the caller
+    @Query("select new com.medimitra.dto.MedicineSuggestion(m.id, m.name, m.price) from Medicine m "
+            + "where lower(m.name) like :prefix escape '\\' or lower(m.salt) like :prefix escape '\\' "
+            + "order by m.name, m.id")
+    List<MedicineSuggestion> findSuggestions(@Param("prefix") String prefix, Pageable pageable);
+
+    // Delta sync keyset on (updatedAt, id), served by idx_medicines_updated_at_id
+    @Query("select m from Medicine m where (m.updatedAt > :since or (m.updatedAt = :since and m.id > :after)) "
+            + "and m.updatedAt <= :until order by m.updatedAt, m.id")
+    List<Medicine> findChangedSince(@Param("since") LocalDateTime since, @Param("after") Long after,
+                                    @Param("until") LocalDateTime until, Pageable pageable);
 }
@@ -0,0 +1,21 @@
+package com.medimitra.repository;
+
+import com.medimitra.model.MedicineTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface MedicineTombstoneRepository extends JpaRepository<MedicineTombstone, Long> {
+
+    // Same (timestamp, id) keyset as MedicineRepository.findChangedSince
+    @Query("select t from MedicineTombstone t where (t.deletedAt > :since "
+            + "or (t.deletedAt = :since and t.medicineId > :after)) and t.deletedAt <= :until "
+            + "order by t.deletedAt, t.medicineId")
+    List<MedicineTombstone> findDeletedSince(@Param("since") LocalDateTime since, @Param("after") Long after,
+                                             @Param("until") LocalDateTime until, Pageable pageable);
+}
@@ -0,0 +1,14 @@
+package com.medimitra.repository;
+
+import com.medimitra.model.StoreInventory;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StoreInventoryRepository extends JpaRepository<StoreInventory, Long> {
+    List<StoreInventory> findByStoreIdOrderByMedicineId(Long storeId);
+    List<StoreInventory> findByStoreIdAndMedicineIdIn(Long storeId, Collection<Long> medicineIds);
+    long countByStoreIdAndQuantityGreaterThan(Long storeId, Integer quantity);
+}
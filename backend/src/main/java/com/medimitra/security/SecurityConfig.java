@@ -4,6 +4,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -37,6 +38,9 @@ public class SecurityConfig {
                 .requestMatchers("/api/auth/**").permitAll()
                 .requestMatchers("/api/debug/**").permitAll()
                 .requestMatchers("/api/admin-fix/**").permitAll()
+                // Bulk catalog endpoints; the controller also requires the admin role
+                .requestMatchers("/api/medicines/import", "/api/medicines/export").authenticated()
+                .requestMatchers(HttpMethod.PUT, "/api/medicines/stock").authenticated()
                 .requestMatchers("/api/medicines/**").permitAll()
                 .requestMatchers("/api/stores/**").permitAll()
                 .requestMatchers("/api/admin/dashboard/**").permitAll()
@@ -53,9 +57,9 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         // Use AllowedOriginPatterns to support wildcards like https://*.vercel.app
         configuration.setAllowedOriginPatterns(Arrays.asList(allowedOrigins.split(",")));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS", "HEAD"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
-        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type"));
+        configuration.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
         
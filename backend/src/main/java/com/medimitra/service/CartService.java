@@ -1,6 +1,8 @@
 package com.medimitra.service;
 
+import com.medimitra.dto.CartOperation;
 import com.medimitra.dto.CartRequest;
+import com.medimitra.dto.CartView;
 import com.medimitra.model.Cart;
 import com.medimitra.model.CartItem;
 import com.medimitra.model.Medicine;
@@ -9,14 +11,50 @@ import com.medimitra.repository.CartItemRepository;
 import com.medimitra.repository.CartRepository;
 import com.medimitra.repository.MedicineRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
+/**
+ * Carts are stored in the database by default. With write-behind enabled they are
+ * served from {@link CartWriteBehindStore} instead, so cart operations take no
+ * database connection; transactions are therefore opened per branch rather than
+ * with {@code @Transactional}.
+ */
 @Service
 public class CartService {
 
+    private static final int MAX_CART_OPERATIONS = 100;
+    // Relies on the unique constraints on carts (user_id) and cart_items (cart_id, medicine_id)
+    private static final String ENSURE_CART_SQL = "INSERT INTO carts (user_id, created_at, updated_at) VALUES (?, ?, ?) "
+            + "ON CONFLICT (user_id) DO NOTHING";
+    private static final String UPSERT_CART_ITEM_SQL = "WITH cart AS ("
+            + "INSERT INTO carts (user_id, created_at, updated_at) VALUES (?, ?, ?) "
+            + "ON CONFLICT (user_id) DO UPDATE SET updated_at = EXCLUDED.updated_at RETURNING id) "
+            + "INSERT INTO cart_items (id, cart_id, medicine_id, quantity) SELECT nextval('cart_items_seq'), id, ?, ? FROM cart "
+            + "ON CONFLICT (cart_id, medicine_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity "
+            + "RETURNING quantity";
+    private static final String INCREMENT_CART_ITEM_SQL = "INSERT INTO cart_items (id, cart_id, medicine_id, quantity) "
+            + "VALUES (nextval('cart_items_seq'), ?, ?, ?) "
+            + "ON CONFLICT (cart_id, medicine_id) DO UPDATE SET quantity = cart_items.quantity + EXCLUDED.quantity";
+    private static final String SET_CART_ITEM_SQL = "INSERT INTO cart_items (id, cart_id, medicine_id, quantity) "
+            + "VALUES (nextval('cart_items_seq'), ?, ?, ?) "
+            + "ON CONFLICT (cart_id, medicine_id) DO UPDATE SET quantity = EXCLUDED.quantity";
+    private static final String DELETE_CART_ITEM_SQL = "DELETE FROM cart_items WHERE cart_id = ? AND medicine_id = ?";
+    private static final String CLEAR_CART_SQL = "DELETE FROM cart_items WHERE cart_id = ?";
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -26,65 +64,199 @@ public class CartService {
     @Autowired
     private MedicineRepository medicineRepository;
 
-    @Transactional
+    @Autowired
+    private MedicineService medicineService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private CartWriteBehindStore cartStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     public Cart getOrCreateCart(User user) {
-        System.out.println("CartService.getOrCreateCart - User: " + (user != null ? user.getId() : "NULL"));
-        Cart cart = cartRepository.findByUser(user).orElseGet(() -> {
-            Cart newCart = new Cart();
-            newCart.setUser(user);
-            return cartRepository.save(newCart);
+        if (cartStore.isEnabled()) {
+            return cartStore.modify(user, CartWriteBehindStore.CartState::toCart);
+        }
+        return transactionTemplate.execute(status -> getOrCreateCartInDatabase(user));
+    }
+
+    /**
+     * The cart as shown to its owner. Read from memory in write-behind mode,
+     * otherwise with a single projection query; a user without a cart gets an
+     * empty view rather than a new row.
+     */
+    public CartView getCartView(User user) {
+        if (cartStore.isEnabled()) {
+            return cartStore.modify(user, cart -> CartView.from(cart.toCart()));
+        }
+        return CartView.fromRows(cartRepository.findViewRowsByUserId(user.getId()));
+    }
+
+    /**
+     * Adds to the medicine's line, creating the cart and the line as needed. In the
+     * database this is a single upsert, so concurrent adds from the same user
+     * accumulate instead of racing; the hold is then placed for the resulting total.
+     */
+    public CartView addToCart(User user, CartRequest request) {
+        System.out.println("CartService.addToCart - User: " + user.getId() + ", Medicine: " + request.getMedicineId() + ", Qty: " + request.getQuantity());
+        if (request.getQuantity() == null || request.getQuantity() < 1) {
+            throw new RuntimeException("Quantity to add must be at least 1");
+        }
+        Medicine medicine = medicineService.getMedicineById(request.getMedicineId());
+        if (!cartStore.isEnabled()) {
+            transactionTemplate.executeWithoutResult(status -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                Integer quantity = jdbcTemplate.queryForObject(UPSERT_CART_ITEM_SQL, Integer.class,
+                        user.getId(), now, now, medicine.getId(), request.getQuantity());
+                stockReservationService.hold(user.getId(), medicine, quantity);
+            });
+            return getCartView(user);
+        }
+        return cartStore.modify(user, cart -> {
+            int quantity = request.getQuantity() + cart.quantityOf(medicine.getId());
+            stockReservationService.hold(user.getId(), medicine, quantity);
+            cart.setQuantity(medicine, quantity);
+            return CartView.from(cart.toCart());
         });
-        
-        // Ensure items are loaded with medicine details
-        if (cart.getItems() != null) {
-            cart.getItems().forEach(item -> {
-                System.out.println("  Cart Item - ID: " + item.getId() + ", Medicine: " + 
-                    (item.getMedicine() != null ? item.getMedicine().getName() : "NULL") + 
-                    ", Quantity: " + item.getQuantity());
+    }
+
+    /**
+     * Sets a line to an absolute quantity; zero removes the line, as with a
+     * PATCH "set" operation.
+     */
+    public CartView updateCartItem(User user, Long itemId, Integer quantity) {
+        if (quantity == null || quantity < 0) {
+            throw new RuntimeException("Quantity must be zero or more");
+        }
+        if (quantity == 0) {
+            return removeFromCart(user, itemId);
+        }
+        if (!cartStore.isEnabled()) {
+            return transactionTemplate.execute(status -> CartView.from(updateCartItemInDatabase(user, itemId, quantity)));
+        }
+        return cartStore.modify(user, cart -> {
+            CartWriteBehindStore.Line line = cart.findLine(itemId);
+            if (line == null) {
+                throw new RuntimeException("Cart item not found");
+            }
+            stockReservationService.hold(user.getId(), line.getMedicine(), quantity);
+            cart.setQuantity(line.getMedicine(), quantity);
+            return CartView.from(cart.toCart());
+        });
+    }
+
+    public CartView removeFromCart(User user, Long itemId) {
+        if (!cartStore.isEnabled()) {
+            return transactionTemplate.execute(status -> CartView.from(removeFromCartInDatabase(user, itemId)));
+        }
+        return cartStore.modify(user, cart -> {
+            CartWriteBehindStore.Line line = cart.findLine(itemId);
+            if (line == null) {
+                throw new RuntimeException("Cart item not found");
+            }
+            cart.remove(line);
+            stockReservationService.release(user.getId(), List.of(line.getMedicine().getId()));
+            return CartView.from(cart.toCart());
+        });
+    }
+
+    /**
+     * Applies a batch of add/set/remove operations as one change: the resulting
+     * quantities are worked out and held for the whole batch before anything is
+     * written, so a failing operation leaves the cart as it was.
+     */
+    public CartView applyOperations(User user, List<CartOperation> operations) {
+        if (operations.size() > MAX_CART_OPERATIONS) {
+            throw new RuntimeException("At most " + MAX_CART_OPERATIONS + " cart operations per request");
+        }
+        if (!cartStore.isEnabled()) {
+            return transactionTemplate.execute(status -> applyOperationsInDatabase(user, operations));
+        }
+        return cartStore.modify(user, cart -> {
+            Map<Long, Integer> targets = resolveTargets(operations, cart::quantityOf, itemId -> {
+                CartWriteBehindStore.Line line = cart.findLine(itemId);
+                return line == null ? null : line.getMedicine().getId();
+            }, new HashSet<>());
+            Map<Long, Medicine> medicines = medicinesFor(targets);
+            holdAll(user, targets, medicines, cart::quantityOf);
+            targets.forEach((medicineId, quantity) -> {
+                if (quantity == 0) {
+                    cart.remove(cart.lineFor(medicineId));
+                } else {
+                    cart.setQuantity(medicines.get(medicineId), quantity);
+                }
             });
+            releaseRemoved(user, targets);
+            return CartView.from(cart.toCart());
+        });
+    }
+
+    /**
+     * Clears the cart in the database, joining the caller's transaction. In
+     * write-behind mode the in-memory cart is dropped before and again after the
+     * commit, so it is reloaded from the database rather than written back.
+     */
+    public void clearCart(User user) {
+        if (cartStore.isEnabled()) {
+            cartStore.discard(user);
         }
-        System.out.println("  Total items in cart: " + (cart.getItems() != null ? cart.getItems().size() : 0));
-        return cart;
+        transactionTemplate.executeWithoutResult(status -> {
+            clearCartInDatabase(user);
+            discardAfterCommit(user);
+        });
     }
 
-    @Transactional
-    public Cart addToCart(User user, CartRequest request) {
-        System.out.println("CartService.addToCart - User: " + user.getId() + ", Medicine: " + request.getMedicineId() + ", Qty: " + request.getQuantity());
-        
-        Cart cart = getOrCreateCart(user);
-        System.out.println("  Got cart: ID=" + cart.getId());
-        
-        Medicine medicine = medicineRepository.findById(request.getMedicineId())
-                .orElseThrow(() -> new RuntimeException("Medicine not found"));
-        System.out.println("  Found medicine: " + medicine.getName());
-
-        // Check if item already exists in cart
-        CartItem existingItem = cart.getItems().stream()
-                .filter(item -> item.getMedicine().getId().equals(medicine.getId()))
-                .findFirst()
-                .orElse(null);
+    /**
+     * Checkout's way of emptying a cart it has already loaded: one bulk delete in
+     * the checkout transaction, without reloading the cart. The caller releases
+     * the stock holds.
+     */
+    public void clearCheckedOutCart(User user, Cart cart) {
+        if (cartStore.isEnabled()) {
+            cartStore.discard(user);
+        }
+        jdbcTemplate.update(CLEAR_CART_SQL, cart.getId());
+        discardAfterCommit(user);
+    }
 
-        if (existingItem != null) {
-            System.out.println("  Item already exists, updating quantity from " + existingItem.getQuantity() + " to " + (existingItem.getQuantity() + request.getQuantity()));
-            existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-            cartItemRepository.save(existingItem);
-        } else {
-            CartItem cartItem = new CartItem();
-            cartItem.setCart(cart);
-            cartItem.setMedicine(medicine);
-            cartItem.setQuantity(request.getQuantity());
-            cart.getItems().add(cartItem);
-            cartItemRepository.save(cartItem);
+    private void discardAfterCommit(User user) {
+        if (cartStore.isEnabled()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cartStore.discard(user);
+                }
+            });
         }
+    }
 
-        Cart savedCart = cartRepository.save(cart);
-        System.out.println("  Saved cart with " + (savedCart.getItems() != null ? savedCart.getItems().size() : 0) + " items");
-        return savedCart;
+    /** Writes pending cart changes now; a no-op unless write-behind is enabled. */
+    public void flushCart(User user) {
+        if (cartStore.isEnabled()) {
+            cartStore.flush(user);
+        }
     }
 
-    @Transactional
-    public Cart updateCartItem(User user, Long itemId, Integer quantity) {
-        Cart cart = getOrCreateCart(user);
+    private Cart getOrCreateCartInDatabase(User user) {
+        System.out.println("CartService.getOrCreateCart - User: " + (user != null ? user.getId() : "NULL"));
+        Cart cart = cartRepository.findWithItemsByUser(user).orElseGet(() -> {
+            // A concurrent request may create it first; either way there is exactly one
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.update(ENSURE_CART_SQL, user.getId(), now, now);
+            return cartRepository.findWithItemsByUser(user).orElseThrow();
+        });
+        System.out.println("  Total items in cart: " + (cart.getItems() != null ? cart.getItems().size() : 0));
+        return cart;
+    }
+
+    private Cart updateCartItemInDatabase(User user, Long itemId, Integer quantity) {
+        Cart cart = getOrCreateCartInDatabase(user);
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -92,14 +264,14 @@ public class CartService {
             throw new RuntimeException("Unauthorized");
         }
 
+        stockReservationService.hold(user.getId(), item.getMedicine(), quantity);
         item.setQuantity(quantity);
         cartItemRepository.save(item);
         return cart;
     }
 
-    @Transactional
-    public Cart removeFromCart(User user, Long itemId) {
-        Cart cart = getOrCreateCart(user);
+    private Cart removeFromCartInDatabase(User user, Long itemId) {
+        Cart cart = getOrCreateCartInDatabase(user);
         CartItem item = cartItemRepository.findById(itemId)
                 .orElseThrow(() -> new RuntimeException("Cart item not found"));
 
@@ -109,12 +281,148 @@ public class CartService {
 
         cart.getItems().remove(item);
         cartItemRepository.delete(item);
+        stockReservationService.release(user.getId(), List.of(item.getMedicine().getId()));
         return cartRepository.save(cart);
     }
 
-    @Transactional
-    public void clearCart(User user) {
-        Cart cart = cartRepository.findByUser(user).orElse(null);
+    private CartView applyOperationsInDatabase(User user, List<CartOperation> operations) {
+        Cart cart = getOrCreateCartInDatabase(user);
+        Map<Long, Integer> before = new HashMap<>();
+        cart.getItems().forEach(item -> before.putIfAbsent(item.getMedicine().getId(), item.getQuantity()));
+        Function<Long, Integer> current = medicineId -> before.getOrDefault(medicineId, 0);
+        Set<Long> absolute = new HashSet<>();
+        Map<Long, Integer> targets = resolveTargets(operations, current, itemId -> cart.getItems().stream()
+                .filter(item -> item.getId().equals(itemId))
+                .map(item -> item.getMedicine().getId())
+                .findFirst()
+                .orElse(null), absolute);
+        medicinesFor(targets);
+
+        // Lines only added to are written as increments, like POST, so concurrent adds accumulate
+        List<Object[]> increments = new ArrayList<>();
+        List<Object[]> sets = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        targets.forEach((medicineId, quantity) -> {
+            if (quantity == 0) {
+                deletes.add(new Object[]{cart.getId(), medicineId});
+            } else if (absolute.contains(medicineId)) {
+                sets.add(new Object[]{cart.getId(), medicineId, quantity});
+            } else {
+                increments.add(new Object[]{cart.getId(), medicineId, quantity - current.apply(medicineId)});
+            }
+        });
+        if (!increments.isEmpty()) {
+            jdbcTemplate.batchUpdate(INCREMENT_CART_ITEM_SQL, increments);
+        }
+        if (!sets.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_CART_ITEM_SQL, sets);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_CART_ITEM_SQL, deletes);
+        }
+
+        // Hold for what the lines hold now, which may include concurrent adds
+        CartView view = CartView.fromRows(cartRepository.findViewRowsByUserId(user.getId()));
+        Map<Long, Integer> written = new LinkedHashMap<>();
+        targets.keySet().forEach(medicineId -> written.put(medicineId, 0));
+        view.getItems().stream()
+                .filter(item -> written.containsKey(item.getMedicine().getId()))
+                .forEach(item -> written.put(item.getMedicine().getId(), item.getQuantity()));
+        holdAll(user, written, medicinesFor(written), current);
+        releaseRemoved(user, written);
+        return view;
+    }
+
+    /**
+     * Final quantity per medicine touched by the batch, leaving out lines that end up unchanged.
+     * Medicines with a set or remove among their operations are collected in {@code absolute}.
+     */
+    private static Map<Long, Integer> resolveTargets(List<CartOperation> operations, Function<Long, Integer> current,
+                                                     Function<Long, Long> medicineOfItem, Set<Long> absolute) {
+        Map<Long, Integer> targets = new LinkedHashMap<>();
+        for (CartOperation operation : operations) {
+            Long medicineId = operation.getMedicineId();
+            if (medicineId == null && operation.getItemId() != null) {
+                medicineId = medicineOfItem.apply(operation.getItemId());
+                if (medicineId == null) {
+                    throw new RuntimeException("Cart item not found");
+                }
+            }
+            if (medicineId == null) {
+                throw new RuntimeException("Each cart operation needs a medicineId or an itemId");
+            }
+            int quantity = operation.getQuantity() != null ? operation.getQuantity() : 0;
+            int before = targets.containsKey(medicineId) ? targets.get(medicineId) : current.apply(medicineId);
+            String op = operation.getOp() != null ? operation.getOp().toLowerCase() : "";
+            switch (op) {
+                case CartOperation.ADD -> {
+                    if (quantity < 1) {
+                        throw new RuntimeException("Quantity to add must be at least 1");
+                    }
+                    targets.put(medicineId, before + quantity);
+                }
+                case CartOperation.SET -> {
+                    if (quantity < 0) {
+                        throw new RuntimeException("Quantity cannot be negative");
+                    }
+                    targets.put(medicineId, quantity);
+                    absolute.add(medicineId);
+                }
+                case CartOperation.REMOVE -> {
+                    targets.put(medicineId, 0);
+                    absolute.add(medicineId);
+                }
+                default -> throw new RuntimeException("Unknown cart operation: " + operation.getOp());
+            }
+        }
+        targets.entrySet().removeIf(target -> target.getValue().equals(current.apply(target.getKey())));
+        return targets;
+    }
+
+    // Medicines for the lines that remain in the cart, from the catalog cache
+    private Map<Long, Medicine> medicinesFor(Map<Long, Integer> targets) {
+        List<Long> ids = targets.entrySet().stream()
+                .filter(target -> target.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Medicine> medicines = new HashMap<>();
+        medicineService.getMedicinesByIds(ids).forEach(medicine -> medicines.put(medicine.getId(), medicine));
+        if (medicines.size() < ids.size()) {
+            throw new RuntimeException("Medicine not found");
+        }
+        return medicines;
+    }
+
+    private void holdAll(User user, Map<Long, Integer> targets, Map<Long, Medicine> medicines,
+                         Function<Long, Integer> current) {
+        List<Long> held = new ArrayList<>();
+        try {
+            targets.forEach((medicineId, quantity) -> {
+                if (quantity > 0) {
+                    stockReservationService.hold(user.getId(), medicines.get(medicineId), quantity);
+                    held.add(medicineId);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Move the holds already taken back; never above what was just granted, so this cannot fail
+            held.forEach(medicineId -> stockReservationService.hold(user.getId(), medicines.get(medicineId),
+                    Math.min(current.apply(medicineId), targets.get(medicineId))));
+            throw e;
+        }
+    }
+
+    private void releaseRemoved(User user, Map<Long, Integer> targets) {
+        List<Long> removed = targets.entrySet().stream()
+                .filter(target -> target.getValue() == 0)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!removed.isEmpty()) {
+            stockReservationService.release(user.getId(), removed);
+        }
+    }
+
+    private void clearCartInDatabase(User user) {
+        Cart cart = cartRepository.findWithItemsByUser(user).orElse(null);
         if (cart != null) {
             // Clear all items from the cart
             List<CartItem> items = new ArrayList<>(cart.getItems());
@@ -123,6 +431,8 @@ public class CartService {
             // Delete items
             if (!items.isEmpty()) {
                 cartItemRepository.deleteAll(items);
+                stockReservationService.release(user.getId(),
+                        items.stream().map(item -> item.getMedicine().getId()).toList());
             }
         }
     }
@@ -0,0 +1,465 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Cart;
+import com.medimitra.model.CartItem;
+import com.medimitra.model.Medicine;
+import com.medimitra.model.User;
+import com.medimitra.repository.CartRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Optional write-behind store for carts (medimitra.cart.write-behind.enabled).
+ * Carts live in a bounded in-memory map keyed by user id and cart operations only
+ * touch memory; dirty carts are written to carts/cart_items in JDBC batches on an
+ * interval, before checkout, when evicted and on shutdown. Items added since the
+ * last flush have negative temporary ids, which keep working after the flush.
+ */
+@Component
+public class CartWriteBehindStore {
+
+    private static final String INSERT_CART_SQL = "INSERT INTO carts (user_id, created_at, updated_at) VALUES (?, ?, ?) "
+            + "ON CONFLICT (user_id) DO UPDATE SET updated_at = EXCLUDED.updated_at RETURNING id";
+    private static final String TOUCH_CART_SQL = "UPDATE carts SET updated_at = ? WHERE id = ?";
+    // The in-memory cart is authoritative, so a row that already exists is overwritten
+    private static final String INSERT_ITEM_SQL = "INSERT INTO cart_items (id, cart_id, medicine_id, quantity) "
+            + "VALUES (nextval('cart_items_seq'), ?, ?, ?) "
+            + "ON CONFLICT (cart_id, medicine_id) DO UPDATE SET quantity = EXCLUDED.quantity";
+    private static final String UPDATE_ITEM_SQL = "UPDATE cart_items SET quantity = ? WHERE id = ?";
+    private static final String DELETE_ITEM_SQL = "DELETE FROM cart_items WHERE id = ?";
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+    private final int maxCarts;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Access ordered, so the least recently used carts are evicted first; guarded by itself
+    private final LinkedHashMap<Long, CartState> carts = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped whenever a cart leaves the map, guarded by carts; see load()
+    private long removals;
+    private final AtomicLong temporaryIds = new AtomicLong();
+    // Flushes run one at a time, so the same changes are never written twice
+    private final Object flushLock = new Object();
+
+    public CartWriteBehindStore(@Value("${medimitra.cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${medimitra.cart.write-behind.max-carts:10000}") int maxCarts,
+                                PlatformTransactionManager transactionManager) {
+        this.enabled = enabled;
+        this.maxCarts = maxCarts;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Runs an operation on the user's cart under that cart's lock. If the cart was
+     * evicted or discarded between loading it and taking the lock, the change would
+     * be lost with it, so the cart is loaded again and the operation retried.
+     */
+    public <T> T modify(User user, Function<CartState, T> operation) {
+        T result;
+        while (true) {
+            CartState state = load(user);
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                result = operation.apply(state);
+                break;
+            }
+        }
+        evictIfNeeded();
+        return result;
+    }
+
+    /**
+     * Writes the user's cart now, e.g. before checkout reads it from the database.
+     * Throws if it cannot be written, so checkout never runs on a stale cart.
+     */
+    public void flush(User user) {
+        CartState state;
+        synchronized (carts) {
+            state = carts.get(user.getId());
+        }
+        if (state != null) {
+            flush(List.of(state), true);
+        }
+    }
+
+    /**
+     * Forgets the user's cart without writing it; the next access reloads it from
+     * the database. Used when the cart is cleared there.
+     */
+    public void discard(User user) {
+        synchronized (flushLock) {
+            synchronized (carts) {
+                CartState state = carts.remove(user.getId());
+                if (state != null) {
+                    removals++;
+                    synchronized (state) {
+                        state.evicted = true;
+                    }
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${medimitra.cart.write-behind.flush-interval-ms:5000}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        List<CartState> states;
+        synchronized (carts) {
+            states = new ArrayList<>(carts.values());
+        }
+        flush(states);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushAll();
+    }
+
+    /**
+     * Returns the cached cart or reads it from the database. A cart removed while the
+     * read was running may have been flushed after the read saw the rows, so the
+     * read is repeated rather than caching an outdated cart.
+     */
+    private CartState load(User user) {
+        while (true) {
+            long removalsBefore;
+            synchronized (carts) {
+                CartState state = carts.get(user.getId());
+                if (state != null) {
+                    return state;
+                }
+                removalsBefore = removals;
+            }
+            CartState loaded = readOnlyTransaction.execute(status -> read(user));
+            synchronized (carts) {
+                CartState existing = carts.get(user.getId());
+                if (existing != null) {
+                    return existing;
+                }
+                if (removals == removalsBefore) {
+                    carts.put(user.getId(), loaded);
+                    return loaded;
+                }
+            }
+        }
+    }
+
+    private CartState read(User user) {
+        CartState state = new CartState(user);
+        cartRepository.findWithItemsByUser(user).ifPresent(cart -> {
+            state.cartId = cart.getId();
+            for (CartItem item : cart.getItems()) {
+                Line line = state.lines.get(item.getMedicine().getId());
+                if (line != null) {
+                    // Merge duplicate rows for the same medicine into one line
+                    line.quantity += item.getQuantity();
+                    state.removedItemIds.add(item.getId());
+                    state.dirty = true;
+                    continue;
+                }
+                line = new Line(temporaryIds.decrementAndGet(), item.getMedicine(), item.getQuantity());
+                line.itemId = item.getId();
+                line.flushedQuantity = item.getQuantity();
+                state.lines.put(item.getMedicine().getId(), line);
+            }
+        });
+        return state;
+    }
+
+    // Flushes the least recently used carts beyond the bound, then drops those still clean
+    private void evictIfNeeded() {
+        List<CartState> victims;
+        synchronized (carts) {
+            if (carts.size() <= maxCarts) {
+                return;
+            }
+            victims = carts.values().stream().limit(carts.size() - maxCarts).toList();
+        }
+        flush(victims);
+        synchronized (carts) {
+            for (CartState victim : victims) {
+                synchronized (victim) {
+                    if (!victim.dirty && carts.remove(victim.user.getId(), victim)) {
+                        victim.evicted = true;
+                        removals++;
+                    }
+                }
+            }
+        }
+    }
+
+    private void flush(Collection<CartState> states) {
+        flush(states, false);
+    }
+
+    /**
+     * Writes the dirty carts in one transaction. If that fails they are retried one
+     * transaction per cart, so a cart that cannot be written (e.g. a line whose
+     * medicine was deleted) does not hold back the others; it stays dirty and is
+     * retried on the next flush. With rethrow, a failure is reported to the caller.
+     */
+    private void flush(Collection<CartState> states, boolean rethrow) {
+        synchronized (flushLock) {
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (CartState state : states) {
+                synchronized (state) {
+                    if (state.dirty) {
+                        snapshots.add(state.snapshot());
+                    }
+                }
+            }
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            try {
+                writeAndApply(snapshots);
+                return;
+            } catch (RuntimeException e) {
+                if (rethrow) {
+                    throw new RuntimeException("Could not save the cart, please try again: " + e.getMessage(), e);
+                }
+                System.out.println("⚠️ Cart flush failed, retrying cart by cart: " + e.getMessage());
+            }
+            for (Snapshot snapshot : snapshots) {
+                try {
+                    writeAndApply(List.of(snapshot));
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ Cart of user " + snapshot.state().user.getId() + " not flushed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void writeAndApply(List<Snapshot> snapshots) {
+        Map<Long, Map<Long, Long>> insertedIds;
+        try {
+            insertedIds = transactionTemplate.execute(status -> write(snapshots));
+        } catch (RuntimeException e) {
+            // Carts inserted by the rolled back transaction do not exist after all
+            for (Snapshot snapshot : snapshots) {
+                synchronized (snapshot.state()) {
+                    snapshot.cartId()[0] = snapshot.state().cartId;
+                }
+            }
+            throw e;
+        }
+        for (Snapshot snapshot : snapshots) {
+            synchronized (snapshot.state()) {
+                snapshot.state().applyFlush(snapshot,
+                        insertedIds.getOrDefault(snapshot.cartId()[0], Collections.emptyMap()));
+            }
+        }
+    }
+
+    /** Writes the given carts in the current transaction; returns cart id -> (medicine id -> new item id). */
+    private Map<Long, Map<Long, Long>> write(List<Snapshot> snapshots) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> deletes = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> touches = new ArrayList<>();
+        Set<Long> insertingCarts = new HashSet<>();
+        for (Snapshot snapshot : snapshots) {
+            if (snapshot.cartId()[0] == null) {
+                snapshot.cartId()[0] = insertCart(snapshot.state().user.getId(), now);
+            }
+            Long cartId = snapshot.cartId()[0];
+            snapshot.deletes().forEach(id -> deletes.add(new Object[] { id }));
+            snapshot.updates().forEach((id, quantity) -> updates.add(new Object[] { quantity, id }));
+            snapshot.inserts().forEach((medicineId, quantity) -> inserts.add(new Object[] { cartId, medicineId, quantity }));
+            if (!snapshot.inserts().isEmpty()) {
+                insertingCarts.add(cartId);
+            }
+            touches.add(new Object[] { now, cartId });
+        }
+        // Deletes first, so a medicine removed and re-added never has two rows
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_ITEM_SQL, deletes);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ITEM_SQL, updates);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, inserts);
+        }
+        jdbcTemplate.batchUpdate(TOUCH_CART_SQL, touches);
+
+        Map<Long, Map<Long, Long>> insertedIds = new HashMap<>();
+        if (!insertingCarts.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(insertingCarts.size(), "?"));
+            jdbcTemplate.query("SELECT id, cart_id, medicine_id FROM cart_items WHERE cart_id IN (" + placeholders + ")",
+                    rs -> {
+                        insertedIds.computeIfAbsent(rs.getLong(2), id -> new HashMap<>()).put(rs.getLong(3), rs.getLong(1));
+                    }, insertingCarts.toArray());
+        }
+        return insertedIds;
+    }
+
+    private Long insertCart(Long userId, Timestamp now) {
+        return jdbcTemplate.queryForObject(INSERT_CART_SQL, Long.class, userId, now, now);
+    }
+
+    /** A user's cart in memory; every method must be called under the state's lock. */
+    public final class CartState {
+        private final User user;
+        private Long cartId;
+        // Keyed by medicine id; at most one line per medicine
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        private final Set<Long> removedItemIds = new HashSet<>();
+        private boolean dirty;
+        // Set once the state is no longer in the map; changes to it would never be flushed
+        private boolean evicted;
+
+        private CartState(User user) {
+            this.user = user;
+        }
+
+        /** Finds a line by its item id, current or temporary. */
+        public Line findLine(Long itemId) {
+            for (Line line : lines.values()) {
+                if (itemId.equals(line.itemId) || itemId == line.temporaryId) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        public Line lineFor(Long medicineId) {
+            return lines.get(medicineId);
+        }
+
+        public int quantityOf(Long medicineId) {
+            Line line = lines.get(medicineId);
+            return line == null ? 0 : line.quantity;
+        }
+
+        public void setQuantity(Medicine medicine, int quantity) {
+            Line line = lines.get(medicine.getId());
+            if (line == null) {
+                line = new Line(temporaryIds.decrementAndGet(), medicine, quantity);
+                lines.put(medicine.getId(), line);
+            }
+            line.quantity = quantity;
+            dirty = true;
+        }
+
+        public void remove(Line line) {
+            lines.remove(line.medicine.getId());
+            if (line.itemId != null) {
+                removedItemIds.add(line.itemId);
+            }
+            dirty = true;
+        }
+
+        /** A detached Cart for the API, in the shape the database-backed service returns. */
+        public Cart toCart() {
+            Cart cart = new Cart();
+            cart.setId(cartId);
+            cart.setUser(user);
+            for (Line line : lines.values()) {
+                cart.getItems().add(new CartItem(line.getId(), cart, line.medicine, line.quantity));
+            }
+            return cart;
+        }
+
+        private Snapshot snapshot() {
+            Map<Long, Integer> updates = new HashMap<>();
+            Map<Long, Integer> inserts = new HashMap<>();
+            for (Line line : lines.values()) {
+                if (line.itemId == null) {
+                    inserts.put(line.medicine.getId(), line.quantity);
+                } else if (line.quantity != line.flushedQuantity) {
+                    updates.put(line.itemId, line.quantity);
+                }
+            }
+            return new Snapshot(this, new Long[] { cartId }, new ArrayList<>(removedItemIds), updates, inserts);
+        }
+
+        private void applyFlush(Snapshot snapshot, Map<Long, Long> insertedIds) {
+            cartId = snapshot.cartId()[0];
+            snapshot.deletes().forEach(removedItemIds::remove);
+            snapshot.updates().forEach((itemId, quantity) -> {
+                Line line = findLine(itemId);
+                if (line != null) {
+                    line.flushedQuantity = quantity;
+                }
+            });
+            snapshot.inserts().forEach((medicineId, quantity) -> {
+                Long itemId = insertedIds.get(medicineId);
+                Line line = lines.get(medicineId);
+                if (line != null && line.itemId == null) {
+                    line.itemId = itemId;
+                    line.flushedQuantity = quantity;
+                } else if (itemId != null) {
+                    // Removed while the flush was running; delete the row next time
+                    removedItemIds.add(itemId);
+                }
+            });
+            dirty = !removedItemIds.isEmpty() || lines.values().stream()
+                    .anyMatch(line -> line.itemId == null || line.quantity != line.flushedQuantity);
+        }
+    }
+
+    public static final class Line {
+        private final long temporaryId;
+        private final Medicine medicine;
+        private Long itemId;
+        private int quantity;
+        private int flushedQuantity;
+
+        private Line(long temporaryId, Medicine medicine, int quantity) {
+            this.temporaryId = temporaryId;
+            this.medicine = medicine;
+            this.quantity = quantity;
+        }
+
+        /** The database id once flushed, a negative temporary id before that. */
+        public Long getId() {
+            return itemId != null ? itemId : temporaryId;
+        }
+
+        public Medicine getMedicine() {
+            return medicine;
+        }
+    }
+
+    // cartId is a one-element array so a cart inserted during the write can report its id
+    private record Snapshot(CartState state, Long[] cartId, List<Long> deletes, Map<Long, Integer> updates,
+                            Map<Long, Integer> inserts) {
+    }
+}
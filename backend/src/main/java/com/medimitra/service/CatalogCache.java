@@ -0,0 +1,189 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.CacheStats;
+import com.medimitra.model.Medicine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded read-through cache for catalog reads (LRU with a TTL). Entries are
+ * evicted precisely from {@link MedicineChangeListener} callbacks, so the TTL is
+ * only a safety net for writes that bypass {@link MedicineService}.
+ *
+ * Cached values are shared between requests and must not be modified by callers.
+ */
+@Component
+public class CatalogCache implements MedicineChangeListener {
+
+    public static final String ALL_KEY = "all";
+    private static final String MEDICINE_PREFIX = "medicine:";
+    private static final String CATEGORY_PREFIX = "category:";
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    // Bumped on every invalidation so a load that raced with a write is not cached
+    private long generation = 0;
+
+    public CatalogCache(@Value("${medimitra.catalog-cache.max-entries:1000}") int maxEntries,
+                        @Value("${medimitra.catalog-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CatalogCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static String medicineKey(Long id) {
+        return MEDICINE_PREFIX + id;
+    }
+
+    public static String categoryKey(String category) {
+        return CATEGORY_PREFIX + category;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return (T) entry.value;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+            loadGeneration = generation;
+        }
+
+        misses.incrementAndGet();
+        // Load outside the lock so a slow query does not block other keys
+        T value = loader.get();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Multi-key variant of {@link #get}: keys found in the cache are served from
+     * memory and all the others are loaded with a single loader call, then cached
+     * one by one. Ids the loader does not return are left out of the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> getAll(Collection<K> ids, Function<K, String> keyOf,
+                                   Function<List<K>, Map<K, V>> loader) {
+        Map<K, V> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        long loadGeneration;
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            for (K id : ids) {
+                String key = keyOf.apply(id);
+                Entry entry = entries.get(key);
+                if (entry != null && entry.expiresAt > now) {
+                    result.put(id, (V) entry.value);
+                    continue;
+                }
+                if (entry != null) {
+                    entries.remove(key);
+                    evictions.incrementAndGet();
+                }
+                missing.add(id);
+            }
+            loadGeneration = generation;
+        }
+        hits.addAndGet(result.size());
+        misses.addAndGet(missing.size());
+
+        if (!missing.isEmpty()) {
+            Map<K, V> loaded = loader.apply(missing);
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    long expiresAt = System.currentTimeMillis() + ttlMillis;
+                    loaded.forEach((id, value) -> entries.put(keyOf.apply(id), new Entry(value, expiresAt)));
+                }
+            }
+            result.putAll(loaded);
+        }
+        return result;
+    }
+
+    public synchronized CacheStats getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long total = hitCount + missCount;
+        return new CacheStats(hitCount, missCount, evictions.get(), entries.size(), maxEntries,
+                total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    public synchronized void clear() {
+        generation++;
+        entries.clear();
+    }
+
+    @Override
+    public void onCatalogLoaded(Collection<Medicine> medicines) {
+        clear();
+    }
+
+    @Override
+    public synchronized void onMedicineSaved(Medicine medicine) {
+        invalidate(medicine.getId());
+        entries.remove(categoryKey(medicine.getCategory()));
+    }
+
+    // One pass over the cached category lists for the whole batch
+    @Override
+    public synchronized void onMedicinesSaved(Collection<Medicine> medicines) {
+        invalidate(medicines.stream().map(Medicine::getId).collect(Collectors.toSet()));
+        medicines.forEach(m -> entries.remove(categoryKey(m.getCategory())));
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        invalidate(id);
+    }
+
+    private void invalidate(Long id) {
+        invalidate(Set.of(id));
+    }
+
+    private void invalidate(Set<Long> ids) {
+        generation++;
+        ids.forEach(id -> entries.remove(medicineKey(id)));
+        entries.remove(ALL_KEY);
+        // The old category is only known from what is cached, so drop any list holding the medicine
+        entries.entrySet().removeIf(e -> e.getKey().startsWith(CATEGORY_PREFIX)
+                && ((List<?>) e.getValue().value).stream().anyMatch(m -> ids.contains(((Medicine) m).getId())));
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+}
@@ -0,0 +1,35 @@
+package com.medimitra.service;
+
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version counters for the medicine catalog and the store list, used as strong
+ * ETags by the read endpoints. {@link MedicineService} and {@link StoreService}
+ * bump them after every committed write, once caches and indexes are up to date.
+ * The boot time is part of the tag so counters restarting at zero after a
+ * redeploy never match a tag a client kept from before.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong medicines = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+
+    public String medicineETag() {
+        return "\"m-" + epoch + "-" + medicines.get() + "\"";
+    }
+
+    public String storeETag() {
+        return "\"s-" + epoch + "-" + stores.get() + "\"";
+    }
+
+    public void bumpMedicines() {
+        medicines.incrementAndGet();
+    }
+
+    public void bumpStores() {
+        stores.incrementAndGet();
+    }
+}
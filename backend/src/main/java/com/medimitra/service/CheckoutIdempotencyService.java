@@ -0,0 +1,149 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.CheckoutRequest;
+import com.medimitra.model.CheckoutIdempotencyKey;
+import com.medimitra.model.Order;
+import com.medimitra.model.User;
+import com.medimitra.repository.CheckoutIdempotencyKeyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Checkout deduplicated by the client's Idempotency-Key, so a retried request
+ * returns the order the first attempt created instead of placing it again.
+ * Recently completed keys are answered from a bounded in-memory map without
+ * touching carts, stock or the database; other nodes' keys are found in
+ * checkout_idempotency_keys. Keys are per user, and a failed checkout records
+ * nothing, so its retry runs normally.
+ */
+@Service
+public class CheckoutIdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CheckoutIdempotencyKeyRepository keyRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final long ttlHours;
+    private final long ttlMillis;
+    // Access ordered and bounded; guarded by itself
+    private final Map<String, Replay> recent;
+
+    public CheckoutIdempotencyService(@Value("${medimitra.idempotency.ttl-hours:24}") long ttlHours,
+                                      @Value("${medimitra.idempotency.max-keys:10000}") int maxKeys) {
+        this.ttlHours = ttlHours;
+        this.ttlMillis = ttlHours * 3_600_000;
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Replay> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    /** Places the order, or returns the one already placed with this key. A null key disables deduplication. */
+    public Order checkout(User user, String idempotencyKey, CheckoutRequest request) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            cartService.flushCart(user);
+            return orderService.checkout(user, request);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        Order replay = findCompleted(user, idempotencyKey);
+        if (replay != null) {
+            System.out.println("🔁 Replayed checkout for key " + idempotencyKey + ": order " + replay.getId());
+            return replay;
+        }
+
+        // Write-behind carts are written out first, outside the checkout transaction
+        cartService.flushCart(user);
+        Order order;
+        try {
+            order = transactionTemplate.execute(status -> {
+                // An expired use of the key may not have been reaped yet; it no longer counts
+                keyRepository.deleteExpired(user.getId(), idempotencyKey, expiredBefore());
+                // Claimed first: a concurrent request with the same key blocks here until this one finishes
+                CheckoutIdempotencyKey claim = keyRepository.save(new CheckoutIdempotencyKey(null, user.getId(),
+                        idempotencyKey, null, LocalDateTime.now()));
+                Order placed = orderService.checkout(user, request);
+                claim.setOrderId(placed.getId());
+                return placed;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // The same key was completed concurrently, possibly on another node
+            replay = findCompleted(user, idempotencyKey);
+            if (replay == null) {
+                throw e;
+            }
+            return replay;
+        }
+        remember(user, idempotencyKey, order);
+        return order;
+    }
+
+    private Order findCompleted(User user, String idempotencyKey) {
+        String key = cacheKey(user, idempotencyKey);
+        synchronized (recent) {
+            Replay replay = recent.get(key);
+            if (replay != null && replay.expiresAt() > System.currentTimeMillis()) {
+                return replay.order();
+            }
+            recent.remove(key);
+        }
+        return keyRepository.findByUserIdAndIdempotencyKeyAndCreatedAtAfter(user.getId(), idempotencyKey,
+                        expiredBefore())
+                .map(stored -> {
+                    Order order = orderService.getOrderById(stored.getOrderId(), user);
+                    remember(user, idempotencyKey, order);
+                    return order;
+                })
+                .orElse(null);
+    }
+
+    private void remember(User user, String idempotencyKey, Order order) {
+        synchronized (recent) {
+            recent.put(cacheKey(user, idempotencyKey), new Replay(order, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    // Keys created at or before this are expired, for lookups, claims and the reaper alike
+    private LocalDateTime expiredBefore() {
+        return LocalDateTime.now().minusHours(ttlHours);
+    }
+
+    private static String cacheKey(User user, String idempotencyKey) {
+        return user.getId() + ":" + idempotencyKey;
+    }
+
+    @Scheduled(fixedDelayString = "${medimitra.idempotency.reap-interval-ms:3600000}")
+    public void reapExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (recent) {
+            recent.values().removeIf(replay -> replay.expiresAt() <= now);
+        }
+        int deleted = keyRepository.deleteCreatedBefore(expiredBefore());
+        if (deleted > 0) {
+            System.out.println("♻️ Removed " + deleted + " expired idempotency keys");
+        }
+    }
+
+    private record Replay(Order order, long expiresAt) {
+    }
+}
@@ -0,0 +1,82 @@
+package com.medimitra.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal RFC 4180 reader/writer used by catalog import and export. Records are
+ * read one at a time, so callers never hold more than one row in memory.
+ */
+public final class CsvCodec {
+
+    private CsvCodec() {
+    }
+
+    /**
+     * Reads the next record, honouring quoted fields that contain commas, quotes or
+     * line breaks. Returns null at end of input.
+     */
+    public static List<String> readRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean sawAnything = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            sawAnything = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!sawAnything) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    public static String formatRecord(List<?> values) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                line.append(escape(value.toString()));
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
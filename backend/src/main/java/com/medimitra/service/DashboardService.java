@@ -27,6 +27,9 @@ public class DashboardService {
     @Autowired
     private MedicineRepository medicineRepository;
 
+    @Autowired
+    private MedicineService medicineService;
+
     @Autowired
     private StoreRepository storeRepository;
 
@@ -48,11 +51,8 @@ public class DashboardService {
         // Active stores
         stats.setActiveStores(storeRepository.findByStatus("Active").size());
 
-        // Low stock medicines (stock < 50)
-        stats.setLowStockMedicines(medicineRepository.findAll().stream()
-                .filter(m -> m.getStock() < 50)
-                .toList()
-                .size());
+        // Low stock medicines (below their category threshold), maintained incrementally
+        stats.setLowStockMedicines(medicineService.getLowStockCount());
 
         // Calculate revenue metrics
         List<Order> allOrders = orderRepository.findAll();
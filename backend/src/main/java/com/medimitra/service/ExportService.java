@@ -0,0 +1,189 @@
+package com.medimitra.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams catalog and order exports row by row from a forward-only JDBC cursor.
+ * Only the current row (or, for NDJSON orders, the current order) is ever held in
+ * memory, whatever the table size.
+ */
+@Service
+public class ExportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final List<String> MEDICINE_COLUMNS = List.of("id", "name", "description", "price", "stock",
+            "category", "manufacturer", "imageUrl", "salt", "type", "prescriptionRequired", "createdAt", "updatedAt");
+    private static final String MEDICINE_SQL = "SELECT id, name, description, price, stock, category, manufacturer, "
+            + "image_url, salt, type, prescription_required, created_at, updated_at FROM medicines ORDER BY id";
+
+    private static final List<String> ORDER_COLUMNS = List.of("orderId", "createdAt", "status", "userId", "storeId",
+            "paymentMethod", "totalAmount", "medicineId", "medicineName", "quantity", "price");
+    private static final String ORDER_SQL = "SELECT o.id, o.created_at, o.status, o.user_id, o.store_id, "
+            + "o.payment_method, o.total_amount, oi.medicine_id, m.name, oi.quantity, oi.price "
+            + "FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.id "
+            + "LEFT JOIN medicines m ON m.id = oi.medicine_id ORDER BY o.id, oi.id";
+    // Columns before medicineId describe the order itself, the rest one order item
+    private static final int ORDER_HEADER_COLUMNS = 7;
+    private static final int ORDER_QUANTITY_COLUMN = ORDER_COLUMNS.indexOf("quantity") + 1;
+
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         @Value("${medimitra.export.fetch-size:500}") int fetchSize) {
+        this.cursorTemplate = new JdbcTemplate(dataSource);
+        this.cursorTemplate.setFetchSize(fetchSize);
+        // PostgreSQL only streams with a cursor when autocommit is off, i.e. inside a transaction
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /** Also validates the format, so controllers call it before the response is committed. */
+    public static String contentType(String format) {
+        if (FORMAT_CSV.equals(format)) {
+            return "text/csv";
+        }
+        if (FORMAT_NDJSON.equals(format)) {
+            return "application/x-ndjson";
+        }
+        throw new RuntimeException("Unsupported export format: " + format + " (use csv or ndjson)");
+    }
+
+    public void exportMedicines(OutputStream out, String format) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (FORMAT_CSV.equals(format)) {
+            writer.write(CsvCodec.formatRecord(MEDICINE_COLUMNS));
+            stream(MEDICINE_SQL, rs -> writer.write(CsvCodec.formatRecord(values(rs, MEDICINE_COLUMNS.size()))));
+        } else {
+            JsonGenerator json = ndjsonGenerator(writer);
+            stream(MEDICINE_SQL, rs -> {
+                json.writeStartObject();
+                Object[] values = values(rs, MEDICINE_COLUMNS.size()).toArray();
+                for (int i = 0; i < values.length; i++) {
+                    json.writeObjectField(MEDICINE_COLUMNS.get(i), values[i]);
+                }
+                endLine(json);
+            });
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    /**
+     * CSV has one line per order item, and one with empty item columns for an order
+     * without items. NDJSON has one line per order with its items nested; rows arrive
+     * ordered by order id, so only the current order is buffered.
+     */
+    public void exportOrders(OutputStream out, String format) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        if (FORMAT_CSV.equals(format)) {
+            writer.write(CsvCodec.formatRecord(ORDER_COLUMNS));
+            stream(ORDER_SQL, rs -> writer.write(CsvCodec.formatRecord(values(rs, ORDER_COLUMNS.size()))));
+        } else {
+            JsonGenerator json = ndjsonGenerator(writer);
+            long[] currentOrder = { -1 };
+            stream(ORDER_SQL, rs -> {
+                long orderId = rs.getLong(1);
+                if (orderId != currentOrder[0]) {
+                    if (currentOrder[0] != -1) {
+                        json.writeEndArray();
+                        endLine(json);
+                    }
+                    currentOrder[0] = orderId;
+                    json.writeStartObject();
+                    for (int i = 0; i < ORDER_HEADER_COLUMNS; i++) {
+                        json.writeObjectField(ORDER_COLUMNS.get(i), value(rs, i + 1));
+                    }
+                    json.writeArrayFieldStart("items");
+                }
+                // An order without items comes back as a single row with null item columns
+                if (rs.getObject(ORDER_QUANTITY_COLUMN) == null) {
+                    return;
+                }
+                json.writeStartObject();
+                for (int i = ORDER_HEADER_COLUMNS; i < ORDER_COLUMNS.size(); i++) {
+                    json.writeObjectField(ORDER_COLUMNS.get(i), value(rs, i + 1));
+                }
+                json.writeEndObject();
+            });
+            if (currentOrder[0] != -1) {
+                json.writeEndArray();
+                endLine(json);
+            }
+            json.flush();
+        }
+        writer.flush();
+    }
+
+    private JsonGenerator ndjsonGenerator(Writer writer) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(writer);
+        // Lines are terminated explicitly in endLine, so no separator between root values
+        json.setRootValueSeparator(null);
+        return json;
+    }
+
+    private static void endLine(JsonGenerator json) throws IOException {
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    private void stream(String sql, RowWriter rowWriter) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> cursorTemplate.query(sql, rs -> {
+                try {
+                    rowWriter.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            // Usually the client went away; stop reading the cursor
+            throw e.getCause();
+        }
+    }
+
+    private static List<Object> values(ResultSet rs, int columns) throws SQLException {
+        Object[] values = new Object[columns];
+        for (int i = 0; i < columns; i++) {
+            values[i] = value(rs, i + 1);
+        }
+        return Arrays.asList(values);
+    }
+
+    private static Object value(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(ResultSet rs) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,120 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.LowStockItem;
+import com.medimitra.dto.LowStockPage;
+import com.medimitra.model.Medicine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Medicines whose stock is below their category's threshold, kept up to date from
+ * catalog change events (checkout, stock endpoints, edits, imports) instead of
+ * scanning the table. Ordered by stock, so the most urgent come first, and the
+ * count is just the set size.
+ */
+@Component
+public class LowStockWatchlist implements MedicineChangeListener {
+
+    private static final Comparator<LowStockItem> BY_STOCK =
+            Comparator.comparing(LowStockItem::getStock).thenComparing(LowStockItem::getId);
+
+    private final int defaultThreshold;
+    private final Map<String, Integer> categoryThresholds = new HashMap<>();
+
+    private final TreeSet<LowStockItem> items = new TreeSet<>(BY_STOCK);
+    private final Map<Long, LowStockItem> byId = new HashMap<>();
+
+    /**
+     * @param categoryThresholds comma separated category:threshold pairs, e.g.
+     *                           "Antibiotic:20,Pain Relief:100"
+     */
+    @Autowired
+    public LowStockWatchlist(@Value("${medimitra.low-stock.default-threshold:50}") int defaultThreshold,
+                             @Value("${medimitra.low-stock.category-thresholds:}") String categoryThresholds) {
+        this.defaultThreshold = defaultThreshold;
+        for (String pair : categoryThresholds.split(",")) {
+            int colon = pair.lastIndexOf(':');
+            if (colon > 0) {
+                this.categoryThresholds.put(pair.substring(0, colon).trim(),
+                        Integer.valueOf(pair.substring(colon + 1).trim()));
+            }
+        }
+    }
+
+    private LowStockWatchlist(int defaultThreshold, Map<String, Integer> categoryThresholds) {
+        this.defaultThreshold = defaultThreshold;
+        this.categoryThresholds.putAll(categoryThresholds);
+    }
+
+    /** A watchlist with the same thresholds built from the given medicines. */
+    public LowStockWatchlist buildFrom(Collection<Medicine> medicines) {
+        LowStockWatchlist watchlist = new LowStockWatchlist(defaultThreshold, categoryThresholds);
+        watchlist.onCatalogLoaded(medicines);
+        return watchlist;
+    }
+
+    public int thresholdFor(String category) {
+        return category == null ? defaultThreshold : categoryThresholds.getOrDefault(category, defaultThreshold);
+    }
+
+    public synchronized int size() {
+        return items.size();
+    }
+
+    public synchronized LowStockPage getPage(int offset, int limit) {
+        List<LowStockItem> page = new ArrayList<>(Math.min(limit, items.size()));
+        Iterator<LowStockItem> it = items.iterator();
+        for (int skipped = 0; skipped < offset && it.hasNext(); skipped++) {
+            it.next();
+        }
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return new LowStockPage(page, items.size(), offset, limit);
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<Medicine> medicines) {
+        items.clear();
+        byId.clear();
+        medicines.forEach(this::track);
+    }
+
+    @Override
+    public synchronized void onMedicineSaved(Medicine medicine) {
+        remove(medicine.getId());
+        track(medicine);
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        remove(id);
+    }
+
+    private void track(Medicine medicine) {
+        int threshold = thresholdFor(medicine.getCategory());
+        int stock = medicine.getStock() == null ? 0 : medicine.getStock();
+        if (stock < threshold) {
+            LowStockItem item = new LowStockItem(medicine.getId(), medicine.getName(), medicine.getCategory(),
+                    stock, threshold);
+            items.add(item);
+            byId.put(item.getId(), item);
+        }
+    }
+
+    private void remove(Long id) {
+        LowStockItem old = byId.remove(id);
+        if (old != null) {
+            items.remove(old);
+        }
+    }
+}
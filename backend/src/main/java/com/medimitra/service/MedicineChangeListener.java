@@ -0,0 +1,24 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import java.util.Collection;
+
+/**
+ * Receives catalog changes from {@link MedicineService}. Callbacks run after the
+ * surrounding transaction commits and always get detached copies.
+ */
+public interface MedicineChangeListener {
+
+    /** Replaces everything the listener knows with a full catalog load. */
+    void onCatalogLoaded(Collection<Medicine> medicines);
+
+    /** Called for a newly created or updated medicine. */
+    void onMedicineSaved(Medicine medicine);
+
+    /** Several medicines saved in one transaction; override to apply them in one go. */
+    default void onMedicinesSaved(Collection<Medicine> medicines) {
+        medicines.forEach(this::onMedicineSaved);
+    }
+
+    void onMedicineDeleted(Long id);
+}
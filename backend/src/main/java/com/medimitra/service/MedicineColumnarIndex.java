@@ -0,0 +1,311 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.MedicineFilterPage;
+import com.medimitra.dto.MedicineSummary;
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable column-oriented copy of the catalog for price/stock range filters and
+ * sorting: primitive price (paise) and stock arrays, row permutations sorted by
+ * price and by stock, and a row bitset per category. Snapshots are replaced by the
+ * change callbacks, never on the query path. Stock-only changes, the common case
+ * (every checkout), copy and patch the stock column and re-place just those rows
+ * in stock order; anything else rebuilds the snapshot.
+ */
+@Component
+public class MedicineColumnarIndex implements MedicineChangeListener {
+
+    public static final String SORT_ID = "id";
+    public static final String SORT_PRICE = "price";
+    public static final String SORT_PRICE_DESC = "-price";
+    public static final String SORT_STOCK = "stock";
+    public static final String SORT_STOCK_DESC = "-stock";
+
+    private final Map<Long, Medicine> medicines = new HashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.build(List.of());
+
+    /**
+     * Runs a filter over the snapshot. Prices are inclusive bounds in rupees, and any
+     * bound may be null. Apart from the result page, nothing is allocated per request.
+     */
+    public MedicineFilterPage filter(BigDecimal minPrice, BigDecimal maxPrice, boolean inStockOnly,
+                                     String category, String sort, int offset, int limit) {
+        Snapshot current = snapshot;
+        long min = minPrice == null ? Long.MIN_VALUE : toPaise(minPrice);
+        long max = maxPrice == null ? Long.MAX_VALUE : toPaise(maxPrice);
+        BitSet categoryRows = null;
+        if (category != null) {
+            categoryRows = current.categoryRows.get(category);
+            if (categoryRows == null) {
+                return new MedicineFilterPage(new ArrayList<>(), 0, offset, limit);
+            }
+        }
+
+        int[] order;
+        int from = 0;
+        int to = current.rows.length;
+        boolean descending = false;
+        switch (sort) {
+            case SORT_ID -> order = null;
+            case SORT_PRICE, SORT_PRICE_DESC -> {
+                // Price order lets the range be cut with two binary searches
+                order = current.byPrice;
+                from = lowerBound(current, min);
+                to = min > max ? from : upperBound(current, max);
+                descending = SORT_PRICE_DESC.equals(sort);
+            }
+            case SORT_STOCK, SORT_STOCK_DESC -> {
+                order = current.byStock;
+                descending = SORT_STOCK_DESC.equals(sort);
+            }
+            default -> throw new RuntimeException("Unsupported sort: " + sort
+                    + " (use id, price, -price, stock or -stock)");
+        }
+
+        List<MedicineSummary> items = new ArrayList<>(Math.min(limit, Math.max(to - from, 0)));
+        int matched = 0;
+        for (int i = 0; i < to - from; i++) {
+            int position = descending ? to - 1 - i : from + i;
+            int row = order == null ? position : order[position];
+            long price = current.pricePaise[row];
+            if (price < min || price > max) {
+                continue;
+            }
+            if (inStockOnly && current.stock[row] <= 0) {
+                continue;
+            }
+            if (categoryRows != null && !categoryRows.get(row)) {
+                continue;
+            }
+            if (matched >= offset && items.size() < limit) {
+                items.add(MedicineSummary.from(current.rows[row]));
+            }
+            matched++;
+        }
+        return new MedicineFilterPage(items, matched, offset, limit);
+    }
+
+    private static int lowerBound(Snapshot snapshot, long paise) {
+        int low = 0;
+        int high = snapshot.byPrice.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.pricePaise[snapshot.byPrice[mid]] < paise) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(Snapshot snapshot, long paise) {
+        int low = 0;
+        int high = snapshot.byPrice.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (snapshot.pricePaise[snapshot.byPrice[mid]] <= paise) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static long toPaise(BigDecimal price) {
+        return price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<Medicine> all) {
+        medicines.clear();
+        all.forEach(m -> medicines.put(m.getId(), m));
+        rebuild();
+    }
+
+    @Override
+    public void onMedicineSaved(Medicine medicine) {
+        onMedicinesSaved(List.of(medicine));
+    }
+
+    @Override
+    public synchronized void onMedicinesSaved(Collection<Medicine> saved) {
+        saved.forEach(m -> medicines.put(m.getId(), m));
+        Snapshot current = snapshot;
+        int[] changedRows = new int[saved.size()];
+        int changed = 0;
+        for (Medicine medicine : saved) {
+            int row = current.rowOf(medicine.getId());
+            if (row < 0 || current.pricePaise[row] != pricePaise(medicine)
+                    || !Objects.equals(current.rows[row].getCategory(), medicine.getCategory())) {
+                rebuild();
+                return;
+            }
+            changedRows[changed++] = row;
+        }
+        snapshot = current.withStock(saved.toArray(new Medicine[0]), changedRows);
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        if (medicines.remove(id) != null) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        snapshot = Snapshot.build(new ArrayList<>(medicines.values()));
+    }
+
+    private static long pricePaise(Medicine medicine) {
+        return medicine.getPrice() == null ? 0L : toPaise(medicine.getPrice());
+    }
+
+    private static int stockOf(Medicine medicine) {
+        return medicine.getStock() == null ? 0 : medicine.getStock();
+    }
+
+    /**
+     * Stable bottom-up merge sort of row numbers by key, on primitive arrays. Rows
+     * passed in ascending order therefore come out with ties in row (= id) order.
+     */
+    private static int[] sortRows(int[] rows, IntToLongFunction key) {
+        int size = rows.length;
+        int[] source = rows.clone();
+        int[] target = new int[size];
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int mid = Math.min(low + width, size);
+                int high = Math.min(low + 2 * width, size);
+                int i = low;
+                int j = mid;
+                int k = low;
+                while (i < mid && j < high) {
+                    target[k++] = key.applyAsLong(source[j]) < key.applyAsLong(source[i]) ? source[j++] : source[i++];
+                }
+                while (i < mid) {
+                    target[k++] = source[i++];
+                }
+                while (j < high) {
+                    target[k++] = source[j++];
+                }
+            }
+            int[] merged = target;
+            target = source;
+            source = merged;
+        }
+        return source;
+    }
+
+    private static final class Snapshot {
+        final Medicine[] rows;
+        final long[] pricePaise;
+        final int[] stock;
+        final int[] byPrice;
+        final int[] byStock;
+        final Map<String, BitSet> categoryRows;
+
+        private Snapshot(Medicine[] rows, long[] pricePaise, int[] stock, int[] byPrice, int[] byStock,
+                         Map<String, BitSet> categoryRows) {
+            this.rows = rows;
+            this.pricePaise = pricePaise;
+            this.stock = stock;
+            this.byPrice = byPrice;
+            this.byStock = byStock;
+            this.categoryRows = categoryRows;
+        }
+
+        // Rows are in id order, so the row of an id is found by binary search; -1 if absent
+        int rowOf(Long id) {
+            int low = 0;
+            int high = rows.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = rows[mid].getId().compareTo(id);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Copy with new stock for the given rows. Price order and categories are
+         * shared; the stock order is one merge of the unchanged rows, still sorted,
+         * with the changed rows sorted on their own.
+         */
+        Snapshot withStock(Medicine[] saved, int[] changedRows) {
+            Medicine[] newRows = rows.clone();
+            int[] newStock = stock.clone();
+            BitSet changed = new BitSet(rows.length);
+            for (int i = 0; i < saved.length; i++) {
+                newRows[changedRows[i]] = saved[i];
+                newStock[changedRows[i]] = stockOf(saved[i]);
+                changed.set(changedRows[i]);
+            }
+            int[] moved = sortRows(changed.stream().toArray(), row -> newStock[row]);
+
+            int[] newByStock = new int[byStock.length];
+            int k = 0;
+            int next = 0;
+            for (int row : byStock) {
+                if (changed.get(row)) {
+                    continue;
+                }
+                while (next < moved.length && (newStock[moved[next]] < newStock[row]
+                        || (newStock[moved[next]] == newStock[row] && moved[next] < row))) {
+                    newByStock[k++] = moved[next++];
+                }
+                newByStock[k++] = row;
+            }
+            while (next < moved.length) {
+                newByStock[k++] = moved[next++];
+            }
+            return new Snapshot(newRows, pricePaise, newStock, byPrice, newByStock, categoryRows);
+        }
+
+        static Snapshot build(List<Medicine> medicines) {
+            Medicine[] rows = medicines.toArray(new Medicine[0]);
+            Arrays.sort(rows, Comparator.comparing(Medicine::getId));
+
+            int size = rows.length;
+            long[] pricePaise = new long[size];
+            int[] stock = new int[size];
+            Map<String, BitSet> categoryRows = new HashMap<>();
+            for (int row = 0; row < size; row++) {
+                Medicine medicine = rows[row];
+                pricePaise[row] = pricePaise(medicine);
+                stock[row] = stockOf(medicine);
+                if (medicine.getCategory() != null) {
+                    categoryRows.computeIfAbsent(medicine.getCategory(), c -> new BitSet(size)).set(row);
+                }
+            }
+
+            // Rows are in id order, so the stable sort also breaks ties by id
+            int[] identity = IntStream.range(0, size).toArray();
+            int[] byPrice = sortRows(identity, row -> pricePaise[row]);
+            int[] byStock = sortRows(identity, row -> stock[row]);
+            return new Snapshot(rows, pricePaise, stock, byPrice, byStock, categoryRows);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.MedicineFacets;
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Facet counters kept per distinct (category, type, manufacturer, prescription)
+ * combination. A facet request walks the combinations, not the catalog, so its
+ * cost does not grow with the number of medicines.
+ */
+@Component
+public class MedicineFacetIndex implements MedicineChangeListener {
+
+    private final Map<FacetKey, Integer> counts = new HashMap<>();
+    private final Map<Long, FacetKey> keyById = new HashMap<>();
+
+    public synchronized MedicineFacets getFacets(String category, String type, String manufacturer,
+                                                 Boolean prescriptionRequired) {
+        int total = 0;
+        Map<String, Integer> categories = new TreeMap<>();
+        Map<String, Integer> types = new TreeMap<>();
+        Map<String, Integer> manufacturers = new TreeMap<>();
+        Map<Boolean, Integer> prescription = new TreeMap<>();
+
+        for (Map.Entry<FacetKey, Integer> entry : counts.entrySet()) {
+            FacetKey key = entry.getKey();
+            int count = entry.getValue();
+            boolean categoryMatches = category == null || category.equals(key.category());
+            boolean typeMatches = type == null || type.equals(key.type());
+            boolean manufacturerMatches = manufacturer == null || manufacturer.equals(key.manufacturer());
+            boolean prescriptionMatches = prescriptionRequired == null
+                    || prescriptionRequired.equals(key.prescriptionRequired());
+
+            if (typeMatches && manufacturerMatches && prescriptionMatches) {
+                increment(categories, key.category(), count);
+            }
+            if (categoryMatches && manufacturerMatches && prescriptionMatches) {
+                increment(types, key.type(), count);
+            }
+            if (categoryMatches && typeMatches && prescriptionMatches) {
+                increment(manufacturers, key.manufacturer(), count);
+            }
+            if (categoryMatches && typeMatches && manufacturerMatches) {
+                increment(prescription, key.prescriptionRequired(), count);
+                if (prescriptionMatches) {
+                    total += count;
+                }
+            }
+        }
+        return new MedicineFacets(total, categories, types, manufacturers, prescription);
+    }
+
+    private static <K> void increment(Map<K, Integer> facet, K value, int count) {
+        if (value != null) {
+            facet.merge(value, count, Integer::sum);
+        }
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<Medicine> medicines) {
+        counts.clear();
+        keyById.clear();
+        medicines.forEach(this::add);
+    }
+
+    @Override
+    public synchronized void onMedicineSaved(Medicine medicine) {
+        FacetKey key = FacetKey.of(medicine);
+        if (Objects.equals(key, keyById.get(medicine.getId()))) {
+            return;
+        }
+        remove(medicine.getId());
+        add(medicine);
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        remove(id);
+    }
+
+    private void add(Medicine medicine) {
+        FacetKey key = FacetKey.of(medicine);
+        keyById.put(medicine.getId(), key);
+        counts.merge(key, 1, Integer::sum);
+    }
+
+    private void remove(Long id) {
+        FacetKey key = keyById.remove(id);
+        if (key != null) {
+            // Drop the combination entirely once its last medicine is gone
+            counts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private record FacetKey(String category, String type, String manufacturer, Boolean prescriptionRequired) {
+        static FacetKey of(Medicine medicine) {
+            return new FacetKey(medicine.getCategory(), medicine.getType(), medicine.getManufacturer(),
+                    Boolean.TRUE.equals(medicine.getPrescriptionRequired()));
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant lookup over the words of medicine names and salts. Candidate
+ * words are found through a trigram index, then ranked by edit distance, so a
+ * query only ever touches words that share trigrams with it.
+ */
+@Component
+public class MedicineFuzzyIndex implements MedicineChangeListener {
+
+    private static final int MAX_RESULTS = 50;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Medicine> medicines = new HashMap<>();
+    private final Map<Long, Set<String>> termsById = new HashMap<>();
+    private final Map<String, Set<Long>> idsByTerm = new HashMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+
+    public List<Medicine> search(String query) {
+        List<String> queryTokens = MedicineSearchIndex.tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> distances = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> tokenDistances = matchToken(queryToken);
+                if (distances == null) {
+                    distances = tokenDistances;
+                } else {
+                    distances.keySet().retainAll(tokenDistances.keySet());
+                    distances.replaceAll((id, distance) -> distance + tokenDistances.get(id));
+                }
+                if (distances.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            // Keep only the best MAX_RESULTS in a bounded heap instead of sorting every hit
+            Map<Long, Integer> ranked = distances;
+            Comparator<Medicine> order = Comparator.<Medicine>comparingInt(m -> ranked.get(m.getId()))
+                    .thenComparing(Medicine::getName, String.CASE_INSENSITIVE_ORDER);
+            PriorityQueue<Medicine> best = new PriorityQueue<>(MAX_RESULTS + 1, order.reversed());
+            for (Long id : ranked.keySet()) {
+                best.add(medicines.get(id));
+                if (best.size() > MAX_RESULTS) {
+                    best.poll();
+                }
+            }
+            List<Medicine> results = new ArrayList<>(best);
+            results.sort(order);
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best edit distance per medicine for one query word, within the allowed budget. */
+    private Map<Long, Integer> matchToken(String queryToken) {
+        int maxEdits = maxEdits(queryToken);
+        Set<String> queryGrams = trigrams(queryToken);
+        // An insert, delete or substitution destroys at most three trigrams of the padded
+        // word, but a swap of two adjacent letters (one edit here) can destroy four
+        int minShared = Math.max(1, queryGrams.size() - 4 * maxEdits);
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> terms = termsByTrigram.get(gram);
+            if (terms != null) {
+                for (String term : terms) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+
+        Map<Long, Integer> tokenDistances = new HashMap<>();
+        shared.forEach((term, count) -> {
+            if (count < minShared || Math.abs(term.length() - queryToken.length()) > maxEdits) {
+                return;
+            }
+            int distance = editDistance(queryToken, term, maxEdits);
+            if (distance <= maxEdits) {
+                for (Long id : idsByTerm.get(term)) {
+                    tokenDistances.merge(id, distance, Math::min);
+                }
+            }
+        });
+        return tokenDistances;
+    }
+
+    private static int maxEdits(String token) {
+        if (token.length() <= 3) {
+            return 0;
+        }
+        return token.length() <= 6 ? 1 : 2;
+    }
+
+    private static Set<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        if (grams.isEmpty()) {
+            grams.add(padded);
+        }
+        return grams;
+    }
+
+    /**
+     * Optimal string alignment distance (insert, delete, substitute, swap adjacent),
+     * abandoning early once every cell in a row exceeds the budget.
+     */
+    static int editDistance(String a, String b, int limit) {
+        int[] previousPrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previousPrevious[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    @Override
+    public void onCatalogLoaded(Collection<Medicine> all) {
+        lock.writeLock().lock();
+        try {
+            medicines.clear();
+            termsById.clear();
+            idsByTerm.clear();
+            termsByTrigram.clear();
+            all.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onMedicineSaved(Medicine medicine) {
+        lock.writeLock().lock();
+        try {
+            remove(medicine.getId());
+            add(medicine);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onMedicineDeleted(Long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Medicine medicine) {
+        Set<String> terms = new HashSet<>(MedicineSearchIndex.tokenize(medicine.getName()));
+        terms.addAll(MedicineSearchIndex.tokenize(medicine.getSalt()));
+
+        medicines.put(medicine.getId(), medicine);
+        termsById.put(medicine.getId(), terms);
+        for (String term : terms) {
+            Set<Long> ids = idsByTerm.computeIfAbsent(term, t -> new HashSet<>());
+            if (ids.isEmpty()) {
+                for (String gram : trigrams(term)) {
+                    termsByTrigram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+                }
+            }
+            ids.add(medicine.getId());
+        }
+    }
+
+    private void remove(Long id) {
+        medicines.remove(id);
+        Set<String> terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Set<Long> ids = idsByTerm.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByTerm.remove(term);
+                for (String gram : trigrams(term)) {
+                    Set<String> gramTerms = termsByTrigram.get(gram);
+                    gramTerms.remove(term);
+                    if (gramTerms.isEmpty()) {
+                        termsByTrigram.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.medimitra.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.medimitra.dto.ImportResult;
+import com.medimitra.model.Medicine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams a CSV or NDJSON catalog from the request body into the medicines table
+ * in JDBC batches. Rows with an id update that medicine; rows without one are
+ * matched on name and manufacturer, so re-importing a catalog updates it instead
+ * of duplicating it. The table has no unique key on name and manufacturer (the
+ * API may create such duplicates), so the matching is done here, with imports
+ * serialized by an advisory lock. Only the current batch is held in memory.
+ */
+@Service
+public class MedicineImportService {
+
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Held until the batch commits, so two imports cannot both insert the same medicine
+    private static final String IMPORT_LOCK_SQL = "SELECT pg_advisory_xact_lock(hashtext('medicine-import'))";
+    private static final String INSERT_SQL = "INSERT INTO medicines (name, description, price, stock, category, "
+            + "manufacturer, image_url, salt, type, prescription_required, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE medicines SET name = ?, description = ?, price = ?, stock = ?, "
+            + "category = ?, manufacturer = ?, image_url = ?, salt = ?, type = ?, prescription_required = ?, "
+            + "updated_at = ? WHERE id = ?";
+    private static final int[] INSERT_TYPES = { Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.INTEGER,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN,
+            Types.TIMESTAMP, Types.TIMESTAMP };
+    private static final int[] UPDATE_TYPES = { Types.VARCHAR, Types.VARCHAR, Types.NUMERIC, Types.INTEGER,
+            Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN,
+            Types.TIMESTAMP, Types.BIGINT };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @Value("${medimitra.import.batch-size:500}")
+    private int batchSize;
+
+    public ImportResult importMedicines(InputStream body, String format) throws IOException {
+        ImportResult result = new ImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        try {
+            return readAndWrite(reader, format, batch, result);
+        } finally {
+            // Batches commit one by one, so reload whenever any did, even if a later one failed.
+            // One reload instead of a change event per imported row; it also bumps the medicine ETag
+            if (result.getInserted() + result.getUpdated() > 0) {
+                medicineService.loadCatalog();
+            }
+        }
+    }
+
+    private ImportResult readAndWrite(BufferedReader reader, String format, List<ImportRow> batch,
+                                      ImportResult result) throws IOException {
+        if (FORMAT_CSV.equals(format)) {
+            List<String> header = CsvCodec.readRecord(reader);
+            if (header == null) {
+                return result;
+            }
+            List<String> columns = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+            long row = 1;
+            List<String> record;
+            while ((record = CsvCodec.readRecord(reader)) != null) {
+                row++;
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < columns.size() && i < record.size(); i++) {
+                    values.put(columns.get(i), record.get(i));
+                }
+                collect(batch, result, row, () -> fromCsv(values));
+            }
+        } else if (FORMAT_NDJSON.equals(format)) {
+            long row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                row++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String json = line;
+                collect(batch, result, row, () -> fromJson(objectMapper.readTree(json)));
+            }
+        } else {
+            throw new RuntimeException("Unsupported import format: " + format + " (use csv or ndjson)");
+        }
+        flush(batch, result);
+        return result;
+    }
+
+    private void collect(List<ImportRow> batch, ImportResult result, long row, RowParser parser) {
+        result.setProcessed(result.getProcessed() + 1);
+        try {
+            batch.add(new ImportRow(row, validate(parser.parse())));
+        } catch (Exception e) {
+            recordError(result, row, e.getMessage());
+            return;
+        }
+        if (batch.size() >= batchSize) {
+            flush(batch, result);
+        }
+    }
+
+    private void flush(List<ImportRow> batch, ImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            Written written = transactionTemplate.execute(status -> writeBatch(batch, now));
+            tally(batch, written, result);
+        } catch (Exception batchFailure) {
+            // The batch was rolled back as a whole; replay row by row to find the bad ones
+            for (ImportRow row : batch) {
+                try {
+                    Written written = transactionTemplate.execute(status -> writeBatch(List.of(row), now));
+                    tally(List.of(row), written, result);
+                } catch (Exception e) {
+                    recordError(result, row.row(), rootMessage(e));
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private Written writeBatch(List<ImportRow> rows, Timestamp now) {
+        jdbcTemplate.execute(IMPORT_LOCK_SQL);
+        Set<String> names = new LinkedHashSet<>();
+        for (ImportRow row : rows) {
+            if (row.medicine().getId() == null) {
+                names.add(row.medicine().getName());
+            }
+        }
+        // Natural key -> id of the oldest medicine with it
+        Map<String, Long> existing = new HashMap<>();
+        if (!names.isEmpty()) {
+            String placeholders = String.join(", ", Collections.nCopies(names.size(), "?"));
+            jdbcTemplate.query("SELECT id, name, manufacturer FROM medicines WHERE name IN (" + placeholders
+                    + ") ORDER BY id", rs -> {
+                        existing.putIfAbsent(naturalKey(rs.getString(2), rs.getString(3)), rs.getLong(1));
+                    }, names.toArray());
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Object[]> matched = new ArrayList<>();
+        // Keyed too, so a medicine listed twice in a batch is inserted once with its last values
+        Map<String, Object[]> inserts = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            Medicine m = row.medicine();
+            Long id = m.getId() != null ? m.getId() : existing.get(naturalKey(m.getName(), m.getManufacturer()));
+            if (id == null) {
+                inserts.put(naturalKey(m.getName(), m.getManufacturer()), new Object[] { m.getName(),
+                        m.getDescription(), m.getPrice(), m.getStock(), m.getCategory(), m.getManufacturer(),
+                        m.getImageUrl(), m.getSalt(), m.getType(), m.getPrescriptionRequired(), now, now });
+                continue;
+            }
+            Object[] args = { m.getName(), m.getDescription(), m.getPrice(), m.getStock(), m.getCategory(),
+                    m.getManufacturer(), m.getImageUrl(), m.getSalt(), m.getType(), m.getPrescriptionRequired(),
+                    now, id };
+            (m.getId() != null ? updates : matched).add(args);
+        }
+        if (!matched.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, matched, UPDATE_TYPES);
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new ArrayList<>(inserts.values()), INSERT_TYPES);
+        }
+        int[] updateCounts = updates.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(UPDATE_SQL, updates, UPDATE_TYPES);
+        return new Written(new HashSet<>(existing.keySet()), updateCounts);
+    }
+
+    private void tally(List<ImportRow> rows, Written written, ImportResult result) {
+        int update = 0;
+        for (ImportRow row : rows) {
+            Medicine m = row.medicine();
+            if (m.getId() == null) {
+                if (written.existing().add(naturalKey(m.getName(), m.getManufacturer()))) {
+                    result.setInserted(result.getInserted() + 1);
+                } else {
+                    result.setUpdated(result.getUpdated() + 1);
+                }
+            } else if (written.updateCounts()[update++] == 0) {
+                recordError(result, row.row(), "Medicine with ID " + row.medicine().getId() + " not found");
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        }
+    }
+
+    private void recordError(ImportResult result, long row, String message) {
+        result.setFailed(result.getFailed() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(new ImportResult.RowError(row, message));
+        }
+    }
+
+    private static String naturalKey(String name, String manufacturer) {
+        return name + '\u0000' + (manufacturer != null ? manufacturer : "");
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    private Medicine validate(Medicine medicine) {
+        if (medicine.getName() == null || medicine.getName().isBlank()) {
+            throw new RuntimeException("name is required");
+        }
+        if (medicine.getPrice() == null || medicine.getPrice().signum() < 0) {
+            throw new RuntimeException("price is required and must not be negative");
+        }
+        if (medicine.getStock() == null || medicine.getStock() < 0) {
+            throw new RuntimeException("stock is required and must not be negative");
+        }
+        if (medicine.getPrescriptionRequired() == null) {
+            medicine.setPrescriptionRequired(false);
+        }
+        return medicine;
+    }
+
+    private Medicine fromCsv(Map<String, String> values) {
+        Medicine medicine = new Medicine();
+        medicine.setId(parseLong("id", values.get("id")));
+        medicine.setName(text(values.get("name")));
+        medicine.setDescription(text(values.get("description")));
+        medicine.setPrice(parseDecimal("price", values.get("price")));
+        medicine.setStock(parseInt("stock", values.get("stock")));
+        medicine.setCategory(text(values.get("category")));
+        medicine.setManufacturer(text(values.get("manufacturer")));
+        medicine.setImageUrl(text(values.get("imageurl")));
+        medicine.setSalt(text(values.get("salt")));
+        medicine.setType(text(values.get("type")));
+        medicine.setPrescriptionRequired(parseBoolean("prescriptionRequired", values.get("prescriptionrequired")));
+        return medicine;
+    }
+
+    private Medicine fromJson(JsonNode node) {
+        Medicine medicine = new Medicine();
+        medicine.setId(parseLong("id", scalar(node, "id")));
+        medicine.setName(scalar(node, "name"));
+        medicine.setDescription(scalar(node, "description"));
+        medicine.setPrice(parseDecimal("price", scalar(node, "price")));
+        medicine.setStock(parseInt("stock", scalar(node, "stock")));
+        medicine.setCategory(scalar(node, "category"));
+        medicine.setManufacturer(scalar(node, "manufacturer"));
+        medicine.setImageUrl(scalar(node, "imageUrl"));
+        medicine.setSalt(scalar(node, "salt"));
+        medicine.setType(scalar(node, "type"));
+        medicine.setPrescriptionRequired(parseBoolean("prescriptionRequired", scalar(node, "prescriptionRequired")));
+        return medicine;
+    }
+
+    // Text of a JSON field; numbers and booleans are parsed from it like CSV cells,
+    // so a stock of 3.5 or "abc" is a row error rather than 3 or 0
+    private static String scalar(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        if (value == null || value.isNull()) {
+            return null;
+        }
+        if (value.isContainerNode()) {
+            throw new RuntimeException(field + " must be a single value");
+        }
+        return value.asText();
+    }
+
+    private static String text(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static Long parseLong(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(field + " must be a whole number: " + value);
+        }
+    }
+
+    private static Integer parseInt(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(field + " must be a whole number: " + value);
+        }
+    }
+
+    private static BigDecimal parseDecimal(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(field + " must be a number: " + value);
+        }
+    }
+
+    private static Boolean parseBoolean(String field, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new RuntimeException(field + " must be true or false: " + value);
+        };
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        Medicine parse() throws Exception;
+    }
+
+    private record ImportRow(long row, Medicine medicine) {
+    }
+
+    // Natural keys that already existed before the batch, and the row counts of the updates by id
+    private record Written(Set<String> existing, int[] updateCounts) {
+    }
+}
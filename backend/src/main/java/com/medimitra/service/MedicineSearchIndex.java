@@ -0,0 +1,165 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over medicine name, salt, manufacturer and category tokens.
+ * Every query token is matched as a prefix so partially typed words still hit.
+ */
+@Component
+public class MedicineSearchIndex implements MedicineChangeListener {
+
+    private static final int NAME_WEIGHT = 4;
+    private static final int SALT_WEIGHT = 3;
+    private static final int MANUFACTURER_WEIGHT = 1;
+    private static final int CATEGORY_WEIGHT = 1;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Medicine> medicines = new HashMap<>();
+    // token -> (medicine id -> best field weight for that token)
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    public List<Medicine> search(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String queryToken : queryTokens) {
+                Map<Long, Integer> tokenScores = scoreToken(queryToken);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Every query token has to match somewhere in the medicine
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return new ArrayList<>();
+                }
+            }
+
+            Map<Long, Integer> ranked = scores;
+            List<Medicine> results = new ArrayList<>(ranked.size());
+            for (Long id : ranked.keySet()) {
+                results.add(medicines.get(id));
+            }
+            results.sort(Comparator.<Medicine>comparingInt(m -> -ranked.get(m.getId()))
+                    .thenComparing(Medicine::getName, String.CASE_INSENSITIVE_ORDER));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> scoreToken(String queryToken) {
+        Map<Long, Integer> tokenScores = new HashMap<>();
+        NavigableMap<String, Map<Long, Integer>> matches =
+                postings.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false);
+        for (Map.Entry<String, Map<Long, Integer>> entry : matches.entrySet()) {
+            // Whole-word hits rank above prefix hits
+            int multiplier = entry.getKey().equals(queryToken) ? 2 : 1;
+            entry.getValue().forEach((id, weight) -> tokenScores.merge(id, weight * multiplier, Math::max));
+        }
+        return tokenScores;
+    }
+
+    @Override
+    public void onCatalogLoaded(Collection<Medicine> all) {
+        lock.writeLock().lock();
+        try {
+            medicines.clear();
+            postings.clear();
+            all.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onMedicineSaved(Medicine medicine) {
+        lock.writeLock().lock();
+        try {
+            remove(medicine.getId());
+            add(medicine);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onMedicineDeleted(Long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Medicine medicine) {
+        Long id = medicine.getId();
+        medicines.put(id, medicine);
+        addTokens(id, medicine.getName(), NAME_WEIGHT);
+        addTokens(id, medicine.getSalt(), SALT_WEIGHT);
+        addTokens(id, medicine.getManufacturer(), MANUFACTURER_WEIGHT);
+        addTokens(id, medicine.getCategory(), CATEGORY_WEIGHT);
+    }
+
+    private void addTokens(Long id, String text, int weight) {
+        for (String token : tokenize(text)) {
+            postings.computeIfAbsent(token, t -> new HashMap<>()).merge(id, weight, Math::max);
+        }
+    }
+
+    private void remove(Long id) {
+        Medicine previous = medicines.remove(id);
+        if (previous == null) {
+            return;
+        }
+        removeTokens(id, previous.getName());
+        removeTokens(id, previous.getSalt());
+        removeTokens(id, previous.getManufacturer());
+        removeTokens(id, previous.getCategory());
+    }
+
+    private void removeTokens(Long id, String text) {
+        for (String token : tokenize(text)) {
+            Map<Long, Integer> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+}
@@ -1,40 +1,418 @@
 package com.medimitra.service;
 
+import com.medimitra.dto.CacheStats;
+import com.medimitra.dto.LowStockPage;
+import com.medimitra.dto.MedicineChanges;
+import com.medimitra.dto.MedicineFacets;
+import com.medimitra.dto.MedicineFilterPage;
+import com.medimitra.dto.MedicinePage;
+import com.medimitra.dto.MedicineSuggestion;
+import com.medimitra.dto.MedicineSummary;
+import com.medimitra.dto.StockAdjustment;
+import com.medimitra.dto.StockAdjustmentResult;
 import com.medimitra.model.Medicine;
+import com.medimitra.model.MedicineTombstone;
 import com.medimitra.repository.MedicineRepository;
+import com.medimitra.repository.MedicineTombstoneRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class MedicineService {
 
+    private static final int MAX_SUGGESTIONS = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_IDS = 500;
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE medicines SET stock = stock - ?, updated_at = ? WHERE id = ? AND stock >= ?";
+    private static final int[] DECREMENT_STOCK_TYPES = { Types.INTEGER, Types.TIMESTAMP, Types.BIGINT, Types.INTEGER };
+    private static final String ADJUST_STOCK_SQL =
+            "UPDATE medicines SET stock = stock * ? + ?, updated_at = ? WHERE id = ? AND stock * ? + ? >= 0";
+    private static final int[] ADJUST_STOCK_TYPES = { Types.INTEGER, Types.INTEGER, Types.TIMESTAMP, Types.BIGINT,
+            Types.INTEGER, Types.INTEGER };
+    private static final int MAX_STOCK_ADJUSTMENTS = 1000;
+    private static final RowMapper<Medicine> MEDICINE_ROW_MAPPER = new BeanPropertyRowMapper<>(Medicine.class);
+    private static final LocalDateTime SYNC_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     @Autowired
     private MedicineRepository medicineRepository;
 
+    @Autowired
+    private MedicineTombstoneRepository medicineTombstoneRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogCache catalogCache;
+
+    @Autowired
+    private MedicineSearchIndex medicineSearchIndex;
+
+    @Autowired
+    private MedicineSuggestIndex medicineSuggestIndex;
+
+    @Autowired
+    private MedicineFuzzyIndex medicineFuzzyIndex;
+
+    @Autowired
+    private MedicineSubstituteIndex medicineSubstituteIndex;
+
+    @Autowired
+    private MedicineFacetIndex medicineFacetIndex;
+
+    @Autowired
+    private MedicineColumnarIndex medicineColumnarIndex;
+
+    @Autowired
+    private LowStockWatchlist lowStockWatchlist;
+
+    @Autowired
+    private List<MedicineChangeListener> changeListeners;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    @Value("${medimitra.sync.lag-seconds:5}")
+    private long syncLagSeconds;
+
+    private volatile boolean catalogLoaded = false;
+
+    // Catalog builds run one at a time
+    private final Object loadLock = new Object();
+    // Changes published while a build reads the table, or null when none is running; guarded by changesLock
+    private final Object changesLock = new Object();
+    private List<Consumer<MedicineChangeListener>> changesDuringLoad;
+
+    /**
+     * Builds the in-memory catalog indexes once the application (and the data
+     * initializers) are up, and again after bulk writes such as imports. Until this
+     * succeeds, reads fall back to the database. Either way the medicine version
+     * moves on, since callers reload because the table changed. Saves and deletes
+     * published while the table is read are replayed on top of the new indexes,
+     * so the snapshot cannot undo them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog() {
+        synchronized (loadLock) {
+            synchronized (changesLock) {
+                changesDuringLoad = new ArrayList<>();
+            }
+            try {
+                List<Medicine> medicines = medicineRepository.findAll().stream()
+                        .map(Medicine::copy)
+                        .toList();
+                synchronized (changesLock) {
+                    List<Consumer<MedicineChangeListener>> replay = changesDuringLoad;
+                    changesDuringLoad = null;
+                    notifyListeners(listener -> {
+                        listener.onCatalogLoaded(medicines);
+                        replay.forEach(change -> change.accept(listener));
+                    });
+                }
+                catalogLoaded = true;
+                System.out.println("✅ Catalog indexes built for " + medicines.size() + " medicines");
+            } catch (Exception e) {
+                synchronized (changesLock) {
+                    changesDuringLoad = null;
+                }
+                // The indexes and cache may now be behind the table; serve from the database instead
+                catalogLoaded = false;
+                catalogCache.clear();
+                catalogVersion.bumpMedicines();
+                System.out.println("⚠️ Could not build catalog indexes: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retries the catalog build while it has not succeeded, e.g. when the database
+     * was unreachable at boot. The ready-event load still runs, so an early retry
+     * before the data initializers finish is superseded by it.
+     */
+    @Scheduled(initialDelayString = "${medimitra.catalog.retry-interval-ms:30000}",
+            fixedDelayString = "${medimitra.catalog.retry-interval-ms:30000}")
+    public void retryCatalogLoad() {
+        if (!catalogLoaded) {
+            loadCatalog();
+        }
+    }
+
     public List<Medicine> getAllMedicines() {
-        return medicineRepository.findAll();
+        return catalogCache.get(CatalogCache.ALL_KEY, () -> List.copyOf(medicineRepository.findAll()));
+    }
+
+    /**
+     * Keyset page of list summaries. Fetches one extra row to know whether a next
+     * page exists, so the cursor is only returned when there really is one.
+     */
+    public MedicinePage getMedicinePage(String after, int limit, String sort) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, size + 1);
+        String[] cursor = after == null || after.isBlank() ? null : decodeCursor(after, !"id".equals(sort));
+        List<MedicineSummary> rows = switch (sort) {
+            case "id" -> medicineRepository.findSummariesAfterId(cursor != null ? parseCursorId(cursor[0]) : 0L,
+                    pageable);
+            case "name" -> cursor == null
+                    ? medicineRepository.findSummariesByName(pageable)
+                    : medicineRepository.findSummariesByNameAfter(cursor[0], parseCursorId(cursor[1]), pageable);
+            case "price" -> cursor == null
+                    ? medicineRepository.findSummariesByPrice(pageable)
+                    : medicineRepository.findSummariesByPriceAfter(parseCursorPrice(cursor[0]),
+                            parseCursorId(cursor[1]), pageable);
+            default -> throw new RuntimeException("Unsupported sort: " + sort + " (use id, name or price)");
+        };
+
+        if (rows.size() <= size) {
+            return new MedicinePage(rows, null);
+        }
+        List<MedicineSummary> items = new ArrayList<>(rows.subList(0, size));
+        MedicineSummary last = items.get(size - 1);
+        String next = switch (sort) {
+            case "name" -> encodeCursor(last.getName(), last.getId());
+            case "price" -> encodeCursor(last.getPrice().toPlainString(), last.getId());
+            default -> last.getId().toString();
+        };
+        return new MedicinePage(items, next);
+    }
+
+    /**
+     * Name and price cursors carry the sort value and the id of the last row,
+     * base64url-encoded so they can be passed back as a query parameter as is.
+     * Id cursors are the plain id.
+     */
+    private static String encodeCursor(String value, Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((value + '\u0000' + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String after, boolean keyed) {
+        if (!keyed) {
+            return new String[] { after };
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(after), StandardCharsets.UTF_8);
+            int separator = decoded.lastIndexOf('\u0000');
+            if (separator < 0) {
+                throw new IllegalArgumentException();
+            }
+            return new String[] { decoded.substring(0, separator), decoded.substring(separator + 1) };
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor: " + after);
+        }
+    }
+
+    private static Long parseCursorId(String id) {
+        try {
+            return Long.valueOf(id.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor: " + id);
+        }
+    }
+
+    private static BigDecimal parseCursorPrice(String price) {
+        try {
+            return new BigDecimal(price);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid cursor: " + price);
+        }
+    }
+
+    public MedicineFilterPage filterMedicines(BigDecimal minPrice, BigDecimal maxPrice, boolean inStock,
+                                              String category, String sort, int offset, int limit) {
+        MedicineColumnarIndex index = medicineColumnarIndex;
+        if (!catalogLoaded) {
+            index = new MedicineColumnarIndex();
+            index.onCatalogLoaded(getAllMedicines());
+        }
+        return index.filter(minPrice, maxPrice, inStock, category, sort,
+                Math.max(offset, 0), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Delta sync: medicines upserted and deleted after the (since, after) cursor,
+     * oldest first. Both come from (timestamp, id) keyset scans and are merged into
+     * one stream, so a single cursor covers both. Changes younger than the sync lag
+     * are held back for the next call, so a write stamped before a slow commit is
+     * not skipped by a client that synced in between.
+     */
+    public MedicineChanges getChangesSince(LocalDateTime since, Long after, int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime from = since != null ? since : SYNC_START;
+        long afterId = since != null && after != null ? after : 0L;
+        LocalDateTime until = LocalDateTime.now().minusSeconds(syncLagSeconds);
+        Pageable pageable = PageRequest.of(0, size + 1);
+        List<Medicine> changed = medicineRepository.findChangedSince(from, afterId, until, pageable);
+        List<MedicineTombstone> deleted = medicineTombstoneRepository.findDeletedSince(from, afterId, until, pageable);
+
+        List<Medicine> upserts = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        LocalDateTime nextSince = from;
+        long nextAfter = afterId;
+        int c = 0;
+        int d = 0;
+        while (upserts.size() + deletedIds.size() < size && (c < changed.size() || d < deleted.size())) {
+            boolean takeChanged = d == deleted.size() || (c < changed.size()
+                    && compareCursor(changed.get(c).getUpdatedAt(), changed.get(c).getId(),
+                            deleted.get(d).getDeletedAt(), deleted.get(d).getMedicineId()) < 0);
+            if (takeChanged) {
+                Medicine medicine = changed.get(c++);
+                upserts.add(medicine);
+                nextSince = medicine.getUpdatedAt();
+                nextAfter = medicine.getId();
+            } else {
+                MedicineTombstone tombstone = deleted.get(d++);
+                deletedIds.add(tombstone.getMedicineId());
+                nextSince = tombstone.getDeletedAt();
+                nextAfter = tombstone.getMedicineId();
+            }
+        }
+        boolean hasMore = c < changed.size() || d < deleted.size();
+        return new MedicineChanges(upserts, deletedIds, nextSince, nextAfter, hasMore);
+    }
+
+    private static int compareCursor(LocalDateTime time, Long id, LocalDateTime otherTime, Long otherId) {
+        int byTime = time.compareTo(otherTime);
+        return byTime != 0 ? byTime : id.compareTo(otherId);
     }
 
+    /**
+     * Cached read; the returned instance is shared, so writers must go through
+     * {@link #updateMedicine} or {@link #updateMedicineStock} instead of mutating it.
+     */
     public Medicine getMedicineById(Long id) {
+        return catalogCache.get(CatalogCache.medicineKey(id), () -> findMedicine(id));
+    }
+
+    /**
+     * Batch lookup in the requested order (duplicates collapsed). Ids cached by
+     * earlier reads are served from memory and the rest come from one query; ids
+     * that do not exist are skipped rather than failing the whole batch.
+     */
+    public List<Medicine> getMedicinesByIds(List<Long> ids) {
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        if (requested.size() > MAX_BATCH_IDS) {
+            throw new RuntimeException("At most " + MAX_BATCH_IDS + " ids can be fetched at once");
+        }
+        Map<Long, Medicine> found = catalogCache.getAll(requested, CatalogCache::medicineKey,
+                missing -> medicineRepository.findAllById(missing).stream()
+                        .collect(Collectors.toMap(Medicine::getId, Function.identity())));
+        return requested.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private Medicine findMedicine(Long id) {
         return medicineRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Medicine not found"));
     }
 
     public List<Medicine> searchMedicines(String query) {
-        return medicineRepository.findByNameContainingIgnoreCase(query);
+        return searchMedicines(query, false);
+    }
+
+    public List<Medicine> searchMedicines(String query, boolean fuzzy) {
+        if (!catalogLoaded) {
+            return medicineRepository.findByNameContainingIgnoreCase(query);
+        }
+        return fuzzy ? medicineFuzzyIndex.search(query) : medicineSearchIndex.search(query);
+    }
+
+    public List<MedicineSuggestion> suggestMedicines(String prefix, int limit) {
+        int size = Math.min(limit, MAX_SUGGESTIONS);
+        if (!catalogLoaded) {
+            String trimmed = prefix == null ? "" : prefix.trim().toLowerCase(Locale.ROOT);
+            if (trimmed.isEmpty() || size <= 0) {
+                return new ArrayList<>();
+            }
+            String pattern = trimmed.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+            return medicineRepository.findSuggestions(pattern, PageRequest.of(0, size));
+        }
+        return medicineSuggestIndex.suggest(prefix, size);
+    }
+
+    public List<Medicine> getSubstitutes(Long id) {
+        if (!catalogLoaded) {
+            Medicine medicine = findMedicine(id);
+            if (medicine.getSalt() == null || medicine.getSalt().isBlank()) {
+                return new ArrayList<>();
+            }
+            return medicineRepository.findBySaltIgnoreCaseAndIdNotOrderByPriceAsc(medicine.getSalt(), id);
+        }
+        List<Medicine> substitutes = medicineSubstituteIndex.findSubstitutes(id);
+        if (substitutes == null) {
+            throw new RuntimeException("Medicine not found");
+        }
+        return substitutes;
+    }
+
+    public MedicineFacets getFacets(String category, String type, String manufacturer, Boolean prescriptionRequired) {
+        if (!catalogLoaded) {
+            MedicineFacetIndex facets = new MedicineFacetIndex();
+            facets.onCatalogLoaded(getAllMedicines());
+            return facets.getFacets(category, type, manufacturer, prescriptionRequired);
+        }
+        return medicineFacetIndex.getFacets(category, type, manufacturer, prescriptionRequired);
+    }
+
+    public LowStockPage getLowStock(int offset, int limit) {
+        return currentLowStockWatchlist().getPage(Math.max(offset, 0), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+    }
+
+    public int getLowStockCount() {
+        return currentLowStockWatchlist().size();
+    }
+
+    private LowStockWatchlist currentLowStockWatchlist() {
+        return catalogLoaded ? lowStockWatchlist : lowStockWatchlist.buildFrom(getAllMedicines());
     }
 
     public List<Medicine> getMedicinesByCategory(String category) {
-        return medicineRepository.findByCategory(category);
+        return catalogCache.get(CatalogCache.categoryKey(category),
+                () -> List.copyOf(medicineRepository.findByCategory(category)));
     }
 
     public Medicine createMedicine(Medicine medicine) {
-        return medicineRepository.save(medicine);
+        Medicine saved = medicineRepository.save(medicine);
+        publishSaved(saved);
+        return saved;
     }
 
     public Medicine updateMedicine(Long id, Medicine medicine) {
-        Medicine existing = getMedicineById(id);
+        Medicine existing = findMedicine(id);
         existing.setName(medicine.getName());
         existing.setDescription(medicine.getDescription());
         existing.setPrice(medicine.getPrice());
@@ -42,11 +420,197 @@ public class MedicineService {
         existing.setCategory(medicine.getCategory());
         existing.setManufacturer(medicine.getManufacturer());
         existing.setImageUrl(medicine.getImageUrl());
+        existing.setSalt(medicine.getSalt());
+        existing.setType(medicine.getType());
         existing.setPrescriptionRequired(medicine.getPrescriptionRequired());
-        return medicineRepository.save(existing);
+        Medicine saved = medicineRepository.save(existing);
+        publishSaved(saved);
+        return saved;
+    }
+
+    public Medicine updateMedicineStock(Long id, int stock) {
+        Medicine existing = findMedicine(id);
+        existing.setStock(stock);
+        Medicine saved = medicineRepository.save(existing);
+        publishSaved(saved);
+        return saved;
+    }
+
+    /**
+     * Takes stock for an order with one batched conditional UPDATE, so concurrent
+     * checkouts can neither lose an update nor oversell. Rows are updated in id
+     * order so that two checkouts always lock shared medicines in the same order
+     * and cannot deadlock. Joins the caller's transaction: if any medicine lacks
+     * stock this throws and the whole order rolls back.
+     */
+    @Transactional
+    public void decrementStock(Map<Long, Integer> quantities) {
+        List<Long> ids = new ArrayList<>(new TreeSet<>(quantities.keySet()));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            int quantity = quantities.get(id);
+            if (quantity <= 0) {
+                throw new RuntimeException("Quantity must be positive");
+            }
+            rows.add(new Object[] { quantity, now, id, quantity });
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, rows, DECREMENT_STOCK_TYPES);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                throw new RuntimeException("Insufficient stock for " + findMedicine(ids.get(i)).getName());
+            }
+        }
+
+        // The UPDATE holds the row locks, so this reads exactly what is about to commit
+        publishSaved(loadRows(ids));
+    }
+
+    /**
+     * Applies many stock changes (a delta or an absolute value per row) in one
+     * transaction with a single JDBC batch. Rows that name an unknown medicine or
+     * would take stock below zero are reported and skipped; the rest still apply.
+     * Caches and indexes hear about the whole batch once, after commit.
+     */
+    @Transactional
+    public StockAdjustmentResult adjustStock(List<StockAdjustment> adjustments) {
+        if (adjustments.size() > MAX_STOCK_ADJUSTMENTS) {
+            throw new RuntimeException("At most " + MAX_STOCK_ADJUSTMENTS + " stock adjustments per request");
+        }
+        // Each row reports the stock it leaves behind, which is ambiguous for a repeated id
+        Set<Long> seen = new HashSet<>();
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getId() != null && !seen.add(adjustment.getId())) {
+                throw new RuntimeException("Medicine " + adjustment.getId()
+                        + " is listed more than once; send one adjustment per medicine");
+            }
+        }
+        String[] errors = new String[adjustments.size()];
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            StockAdjustment adjustment = adjustments.get(i);
+            if (adjustment.getId() == null) {
+                errors[i] = "id is required";
+            } else if ((adjustment.getDelta() == null) == (adjustment.getStock() == null)) {
+                errors[i] = "Give exactly one of delta or stock";
+            } else if (adjustment.getStock() != null && adjustment.getStock() < 0) {
+                errors[i] = "stock must not be negative";
+            } else {
+                valid.add(i);
+            }
+        }
+        // Id order avoids deadlocks with concurrent checkouts
+        valid.sort(Comparator.comparing(i -> adjustments.get(i).getId()));
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            StockAdjustment adjustment = adjustments.get(i);
+            // stock = stock * factor + amount: factor 1 adds a delta, factor 0 sets an absolute value
+            int factor = adjustment.getDelta() != null ? 1 : 0;
+            int amount = adjustment.getDelta() != null ? adjustment.getDelta() : adjustment.getStock();
+            rows.add(new Object[] { factor, amount, now, adjustment.getId(), factor, amount });
+        }
+        int[] counts = rows.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(ADJUST_STOCK_SQL, rows, ADJUST_STOCK_TYPES);
+
+        Set<Long> ids = valid.stream().map(i -> adjustments.get(i).getId()).collect(Collectors.toCollection(TreeSet::new));
+        Map<Long, Medicine> updated = ids.isEmpty() ? Map.of() : loadRows(new ArrayList<>(ids)).stream()
+                .collect(Collectors.toMap(Medicine::getId, Function.identity()));
+        for (int k = 0; k < counts.length; k++) {
+            if (counts[k] == 0) {
+                int i = valid.get(k);
+                errors[i] = updated.containsKey(adjustments.get(i).getId())
+                        ? "Stock cannot go below 0" : "Medicine not found";
+            }
+        }
+
+        StockAdjustmentResult result = new StockAdjustmentResult();
+        List<Medicine> changed = new ArrayList<>();
+        for (int i = 0; i < adjustments.size(); i++) {
+            Long id = adjustments.get(i).getId();
+            if (errors[i] != null) {
+                result.setFailed(result.getFailed() + 1);
+                result.getResults().add(new StockAdjustmentResult.Row(id, false, null, errors[i]));
+            } else {
+                Medicine medicine = updated.get(id);
+                result.setUpdated(result.getUpdated() + 1);
+                result.getResults().add(new StockAdjustmentResult.Row(id, true, medicine.getStock(), null));
+                changed.add(medicine);
+            }
+        }
+        publishSaved(changed);
+        return result;
     }
 
-    public void deleteMedicine(Long id) {
+    private List<Medicine> loadRows(List<Long> ids) {
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query("SELECT * FROM medicines WHERE id IN (" + placeholders + ")", MEDICINE_ROW_MAPPER,
+                ids.toArray());
+    }
+
+    public CacheStats getCacheStats() {
+        return catalogCache.getStats();
+    }
+
+    /** Returns false if there is no such medicine, so no tombstone is recorded for it. */
+    @Transactional
+    public boolean deleteMedicine(Long id) {
+        if (!medicineRepository.existsById(id)) {
+            return false;
+        }
         medicineRepository.deleteById(id);
+        medicineTombstoneRepository.save(new MedicineTombstone(id, LocalDateTime.now()));
+        afterCommit(() -> publish(listener -> listener.onMedicineDeleted(id)));
+        return true;
+    }
+
+    /**
+     * Pushes a saved medicine to the catalog indexes once the current transaction
+     * commits.
+     */
+    private void publishSaved(Medicine medicine) {
+        afterCommit(() -> {
+            Medicine snapshot = medicine.copy();
+            publish(listener -> listener.onMedicineSaved(snapshot));
+        });
+    }
+
+    private void publishSaved(List<Medicine> medicines) {
+        if (medicines.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            List<Medicine> snapshots = medicines.stream().map(Medicine::copy).toList();
+            publish(listener -> listener.onMedicinesSaved(snapshots));
+        });
+    }
+
+    /** Delivers a committed change, and keeps it for replay if a catalog build is reading the table. */
+    private void publish(Consumer<MedicineChangeListener> change) {
+        synchronized (changesLock) {
+            if (changesDuringLoad != null) {
+                changesDuringLoad.add(change);
+            }
+        }
+        notifyListeners(change);
+    }
+
+    private void notifyListeners(Consumer<MedicineChangeListener> event) {
+        changeListeners.forEach(event);
+        // Only after caches and indexes have caught up, so a new ETag never labels stale data
+        catalogVersion.bumpMedicines();
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,104 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups medicines by salt so generic substitutes are a single map lookup. Each
+ * group is an immutable list ordered cheapest first (out-of-stock last), rebuilt
+ * only when one of its members changes.
+ */
+@Component
+public class MedicineSubstituteIndex implements MedicineChangeListener {
+
+    private static final Comparator<Medicine> SUBSTITUTE_ORDER = Comparator
+            .comparing((Medicine m) -> m.getStock() == null || m.getStock() <= 0)
+            .thenComparing(Medicine::getPrice, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Medicine::getStock, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(Medicine::getId);
+
+    private final Map<String, List<Medicine>> medicinesBySalt = new HashMap<>();
+    private final Map<Long, String> saltById = new HashMap<>();
+
+    /**
+     * Other medicines with the same salt, or null when the medicine is unknown.
+     */
+    public synchronized List<Medicine> findSubstitutes(Long id) {
+        if (!saltById.containsKey(id)) {
+            return null;
+        }
+        String salt = saltById.get(id);
+        List<Medicine> substitutes = new ArrayList<>();
+        if (salt == null) {
+            return substitutes;
+        }
+        for (Medicine medicine : medicinesBySalt.get(salt)) {
+            if (!medicine.getId().equals(id)) {
+                substitutes.add(medicine);
+            }
+        }
+        return substitutes;
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<Medicine> medicines) {
+        medicinesBySalt.clear();
+        saltById.clear();
+        Map<String, List<Medicine>> groups = new HashMap<>();
+        for (Medicine medicine : medicines) {
+            String salt = saltKey(medicine);
+            saltById.put(medicine.getId(), salt);
+            if (salt != null) {
+                groups.computeIfAbsent(salt, s -> new ArrayList<>()).add(medicine);
+            }
+        }
+        groups.forEach((salt, group) -> {
+            group.sort(SUBSTITUTE_ORDER);
+            medicinesBySalt.put(salt, List.copyOf(group));
+        });
+    }
+
+    @Override
+    public synchronized void onMedicineSaved(Medicine medicine) {
+        removeFromGroup(medicine.getId());
+        String salt = saltKey(medicine);
+        saltById.put(medicine.getId(), salt);
+        if (salt != null) {
+            List<Medicine> group = new ArrayList<>(medicinesBySalt.getOrDefault(salt, List.of()));
+            group.add(medicine);
+            group.sort(SUBSTITUTE_ORDER);
+            medicinesBySalt.put(salt, List.copyOf(group));
+        }
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        removeFromGroup(id);
+        saltById.remove(id);
+    }
+
+    private void removeFromGroup(Long id) {
+        String salt = saltById.get(id);
+        if (salt == null) {
+            return;
+        }
+        List<Medicine> group = new ArrayList<>(medicinesBySalt.get(salt));
+        group.removeIf(m -> m.getId().equals(id));
+        if (group.isEmpty()) {
+            medicinesBySalt.remove(salt);
+        } else {
+            medicinesBySalt.put(salt, List.copyOf(group));
+        }
+    }
+
+    private static String saltKey(Medicine medicine) {
+        List<String> tokens = MedicineSearchIndex.tokenize(medicine.getSalt());
+        return tokens.isEmpty() ? null : String.join(" ", tokens);
+    }
+}
@@ -0,0 +1,209 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.MedicineSuggestion;
+import com.medimitra.model.Medicine;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Typeahead index: a sorted array of normalized names and salts searched with
+ * binary search. Readers work on an immutable snapshot that writers replace: a
+ * catalog load sorts everything, while saves and deletes copy the arrays without
+ * the medicine's old keys and merge its new ones in, so no write costs a sort of
+ * the catalog and lookups never wait for one.
+ */
+@Component
+public class MedicineSuggestIndex implements MedicineChangeListener {
+
+    // Current keys and suggestion of each medicine; guarded by this, like snapshot writes
+    private final Map<Long, MedicineSuggestion> suggestions = new HashMap<>();
+    private final Map<Long, String[]> keysById = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(new String[0], new long[0], new MedicineSuggestion[0]);
+
+    public List<MedicineSuggestion> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<MedicineSuggestion> results = new ArrayList<>();
+        if (normalized.isEmpty() || limit <= 0) {
+            return results;
+        }
+
+        Snapshot current = snapshot;
+        int index = lowerBound(current.keys, normalized);
+        Set<Long> seen = new HashSet<>();
+        while (index < current.keys.length && current.keys[index].startsWith(normalized) && seen.size() < limit) {
+            if (seen.add(current.ids[index])) {
+                results.add(current.suggestions[index]);
+            }
+            index++;
+        }
+        return results;
+    }
+
+    /** First position whose key is >= the prefix; unlike Arrays.binarySearch, stable on duplicates. */
+    private static int lowerBound(String[] keys, String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public synchronized void onCatalogLoaded(Collection<Medicine> medicines) {
+        suggestions.clear();
+        keysById.clear();
+        medicines.forEach(this::put);
+        List<Entry> entries = new ArrayList<>();
+        keysById.forEach((id, keys) -> addEntries(entries, id, keys));
+        entries.sort(ENTRY_ORDER);
+        snapshot = Snapshot.of(entries);
+    }
+
+    @Override
+    public void onMedicineSaved(Medicine medicine) {
+        onMedicinesSaved(List.of(medicine));
+    }
+
+    @Override
+    public synchronized void onMedicinesSaved(Collection<Medicine> medicines) {
+        Set<Long> changed = new HashSet<>();
+        for (Medicine medicine : medicines) {
+            // Stock-only updates (checkout) leave the typeahead untouched
+            if (Arrays.equals(keysOf(medicine), keysById.get(medicine.getId()))
+                    && Objects.equals(toSuggestion(medicine), suggestions.get(medicine.getId()))) {
+                continue;
+            }
+            put(medicine);
+            changed.add(medicine.getId());
+        }
+        replace(changed);
+    }
+
+    @Override
+    public synchronized void onMedicineDeleted(Long id) {
+        if (keysById.remove(id) != null) {
+            suggestions.remove(id);
+            replace(Set.of(id));
+        }
+    }
+
+    /**
+     * Swaps in a snapshot where the given medicines' entries are rebuilt from the
+     * maps: one pass drops their old entries and merges in their sorted new ones.
+     */
+    private void replace(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Entry> added = new ArrayList<>();
+        for (Long id : ids) {
+            String[] keys = keysById.get(id);
+            if (keys != null) {
+                addEntries(added, id, keys);
+            }
+        }
+        added.sort(ENTRY_ORDER);
+
+        Snapshot current = snapshot;
+        int size = current.keys.length + added.size();
+        String[] keys = new String[size];
+        long[] entryIds = new long[size];
+        MedicineSuggestion[] entrySuggestions = new MedicineSuggestion[size];
+        int out = 0;
+        int next = 0;
+        for (int i = 0; i < current.keys.length; i++) {
+            if (ids.contains(current.ids[i])) {
+                continue;
+            }
+            while (next < added.size() && added.get(next).compareTo(current.keys[i], current.ids[i]) < 0) {
+                Entry entry = added.get(next++);
+                keys[out] = entry.key();
+                entryIds[out] = entry.id();
+                entrySuggestions[out++] = entry.suggestion();
+            }
+            keys[out] = current.keys[i];
+            entryIds[out] = current.ids[i];
+            entrySuggestions[out++] = current.suggestions[i];
+        }
+        while (next < added.size()) {
+            Entry entry = added.get(next++);
+            keys[out] = entry.key();
+            entryIds[out] = entry.id();
+            entrySuggestions[out++] = entry.suggestion();
+        }
+        snapshot = new Snapshot(Arrays.copyOf(keys, out), Arrays.copyOf(entryIds, out),
+                Arrays.copyOf(entrySuggestions, out));
+    }
+
+    private void addEntries(List<Entry> entries, Long id, String[] keys) {
+        MedicineSuggestion suggestion = suggestions.get(id);
+        for (String key : keys) {
+            entries.add(new Entry(key, id, suggestion));
+        }
+    }
+
+    private void put(Medicine medicine) {
+        keysById.put(medicine.getId(), keysOf(medicine));
+        suggestions.put(medicine.getId(), toSuggestion(medicine));
+    }
+
+    private String[] keysOf(Medicine medicine) {
+        String name = normalize(medicine.getName());
+        String salt = normalize(medicine.getSalt());
+        if (salt.isEmpty() || salt.equals(name)) {
+            return new String[] { name };
+        }
+        return new String[] { name, salt };
+    }
+
+    private MedicineSuggestion toSuggestion(Medicine medicine) {
+        return new MedicineSuggestion(medicine.getId(), medicine.getName(), medicine.getPrice());
+    }
+
+    private static String normalize(String text) {
+        return String.join(" ", MedicineSearchIndex.tokenize(text));
+    }
+
+    private static final Comparator<Entry> ENTRY_ORDER = Comparator.comparing(Entry::key)
+            .thenComparingLong(Entry::id);
+
+    private record Entry(String key, long id, MedicineSuggestion suggestion) {
+
+        int compareTo(String otherKey, long otherId) {
+            int byKey = key.compareTo(otherKey);
+            return byKey != 0 ? byKey : Long.compare(id, otherId);
+        }
+    }
+
+    // Parallel arrays sorted by key, then id; one entry per key of a medicine
+    private record Snapshot(String[] keys, long[] ids, MedicineSuggestion[] suggestions) {
+
+        static Snapshot of(List<Entry> entries) {
+            String[] keys = new String[entries.size()];
+            long[] ids = new long[entries.size()];
+            MedicineSuggestion[] suggestions = new MedicineSuggestion[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i).key();
+                ids[i] = entries.get(i).id();
+                suggestions[i] = entries.get(i).suggestion();
+            }
+            return new Snapshot(keys, ids, suggestions);
+        }
+    }
+}
@@ -6,13 +6,16 @@ import com.medimitra.repository.AddressRepository;
 import com.medimitra.repository.CartRepository;
 import com.medimitra.repository.OrderRepository;
 import com.medimitra.repository.StoreRepository;
-import com.medimitra.repository.MedicineRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderService {
@@ -33,7 +36,16 @@ public class OrderService {
     private StoreRepository storeRepository;
 
     @Autowired
-    private MedicineRepository medicineRepository;
+    private StoreService storeService;
+
+    @Autowired
+    private MedicineService medicineService;
+
+    @Autowired
+    private StockReservationService stockReservationService;
+
+    @Autowired
+    private StoreInventoryService storeInventoryService;
 
     public List<Order> getUserOrders(User user) {
         System.out.println("=== OrderService.getUserOrders ===");
@@ -74,7 +86,8 @@ public class OrderService {
             throw new RuntimeException("Payment method is required for checkout");
         }
         
-        Cart cart = cartRepository.findByUser(user)
+        // Cart, items and medicines in one query, the address in a second one
+        Cart cart = cartRepository.findWithItemsByUser(user)
                 .orElseThrow(() -> new RuntimeException("Cart is empty"));
 
         if (cart.getItems().isEmpty()) {
@@ -111,71 +124,58 @@ public class OrderService {
         }
 
         order.setTotalAmount(totalAmount);
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, Medicine> medicines = new HashMap<>();
+        for (OrderItem orderItem : order.getItems()) {
+            quantities.merge(orderItem.getMedicine().getId(), orderItem.getQuantity(), Integer::sum);
+            medicines.put(orderItem.getMedicine().getId(), orderItem.getMedicine());
+        }
         
         // Assign store
         if (request.getStoreId() != null) {
             Store store = storeRepository.findById(request.getStoreId())
                     .orElseThrow(() -> new RuntimeException("Store not found"));
             order.setStore(store);
+            storeInventoryService.drawFromStore(store.getId(), quantities);
         } else {
-            // Assign closest active store
-            Store closestStore = findClosestStore(address);
-            if (closestStore != null) {
-                order.setStore(closestStore);
+            // Nearest active store that stocks the whole cart, otherwise the closest one
+            List<Store> storesByDistance = findActiveStoresByDistance(address);
+            Store store = storeInventoryService.routeOrder(quantities, storesByDistance);
+            if (store == null && !storesByDistance.isEmpty()) {
+                store = storesByDistance.get(0);
+                storeInventoryService.drawFromStore(store.getId(), quantities);
             }
-        }
-        
-        // Decrease medicine stock
-        for (OrderItem orderItem : order.getItems()) {
-            Medicine medicine = orderItem.getMedicine();
-            int newStock = medicine.getStock() - orderItem.getQuantity();
-            if (newStock < 0) {
-                throw new RuntimeException("Insufficient stock for " + medicine.getName());
+            if (store != null) {
+                order.setStore(store);
             }
-            medicine.setStock(newStock);
-            medicineRepository.save(medicine);
         }
         
+        // Decrease medicine stock atomically; throws (and rolls back) if any item is short
+        // Re-checks against other shoppers' holds too, in case this cart's holds expired
+        quantities.forEach((id, quantity) -> stockReservationService.hold(user.getId(), medicines.get(id), quantity));
+        medicineService.decrementStock(quantities);
+        stockReservationService.release(user.getId(), quantities.keySet());
+        
         // Save order first (this will cascade save the items)
         Order savedOrder = orderRepository.save(order);
         System.out.println("Order saved successfully: ID=" + savedOrder.getId() + ", User=" + savedOrder.getUser().getId());
 
-        // Clear cart after successful order creation
-        try {
-            cartService.clearCart(user);
-            System.out.println("Cart cleared for user: " + user.getId());
-        } catch (Exception e) {
-            // Log the error but don't fail the order
-            System.err.println("Error clearing cart: " + e.getMessage());
-        }
+        // Empty the cart in the same transaction; the holds were released above
+        cartService.clearCheckedOutCart(user, cart);
+        System.out.println("Cart cleared for user: " + user.getId());
 
         return savedOrder;
     }
     
-    private Store findClosestStore(Address address) {
-        List<Store> activeStores = storeRepository.findByStatus("Active");
-        if (activeStores.isEmpty()) {
-            return null;
-        }
-        
+    private List<Store> findActiveStoresByDistance(Address address) {
+        List<Store> activeStores = new ArrayList<>(storeService.getActiveStores());
         // Simple distance calculation (can be improved with actual geocoding)
-        Store closestStore = activeStores.get(0);
-        double minDistance = Double.MAX_VALUE;
-        
-        for (Store store : activeStores) {
-            // Simple distance approximation
-            double distance = Math.sqrt(
+        activeStores.sort(Comparator.comparingDouble(store -> Math.sqrt(
                 Math.pow(store.getLatitude() - 29.2183, 2) + // Default lat for Haldwani
                 Math.pow(store.getLongitude() - 79.5130, 2)  // Default lon for Haldwani
-            );
-            
-            if (distance < minDistance) {
-                minDistance = distance;
-                closestStore = store;
-            }
-        }
-        
-        return closestStore;
+        )));
+        return activeStores;
     }
     
     public List<Order> getStoreOrders(Long storeId) {
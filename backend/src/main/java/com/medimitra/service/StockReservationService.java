@@ -0,0 +1,196 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory ledger of short-lived stock holds placed by carts, so that shoppers
+ * learn a popular item is gone when they add it rather than at checkout. Holds
+ * are kept per medicine in lock stripes; an availability check only locks the
+ * stripe of that medicine and never touches the database. Committed stock comes
+ * from the catalog change events. The database stays the final authority: the
+ * checkout decrement is still conditional.
+ */
+@Service
+public class StockReservationService implements MedicineChangeListener {
+
+    private static final int STRIPES = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public StockReservationService(@Value("${medimitra.reservations.ttl-minutes:15}") long ttlMinutes) {
+        this.ttlMillis = ttlMinutes * 60_000;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Sets the user's hold on a medicine to the given quantity (their cart total for
+     * it) and restarts its TTL. Throws when other users' holds leave too little.
+     */
+    public void hold(Long userId, Medicine medicine, int quantity) {
+        Long medicineId = medicine.getId();
+        long now = System.currentTimeMillis();
+        Stripe stripe = stripe(medicineId);
+        synchronized (stripe) {
+            MedicineHolds holds = stripe.medicines.computeIfAbsent(medicineId, id -> new MedicineHolds());
+            holds.purgeExpired(now);
+            Hold own = holds.byUser.get(userId);
+            int heldByOthers = holds.total - (own == null ? 0 : own.quantity());
+            int available = stock.getOrDefault(medicineId, medicine.getStock()) - heldByOthers;
+            if (quantity > available) {
+                if (holds.byUser.isEmpty()) {
+                    stripe.medicines.remove(medicineId);
+                }
+                throw new RuntimeException("Only " + Math.max(available, 0) + " left in stock for " + medicine.getName());
+            }
+            holds.put(userId, new Hold(quantity, now + ttlMillis));
+        }
+    }
+
+    /**
+     * Drops the user's holds once the current transaction commits (immediately
+     * without one). At checkout this is what converts the holds into the order:
+     * from the commit on, the decremented stock accounts for them.
+     */
+    public void release(Long userId, Collection<Long> medicineIds) {
+        List<Long> ids = List.copyOf(medicineIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    releaseNow(userId, ids);
+                }
+            });
+        } else {
+            releaseNow(userId, ids);
+        }
+    }
+
+    private void releaseNow(Long userId, List<Long> medicineIds) {
+        for (Long medicineId : medicineIds) {
+            Stripe stripe = stripe(medicineId);
+            synchronized (stripe) {
+                MedicineHolds holds = stripe.medicines.get(medicineId);
+                if (holds != null) {
+                    holds.remove(userId);
+                    if (holds.byUser.isEmpty()) {
+                        stripe.medicines.remove(medicineId);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reclaims expired holds a stripe at a time, so a sweep never blocks holds on
+     * other medicines. Checks also purge lazily, this just bounds memory.
+     */
+    @Scheduled(fixedDelayString = "${medimitra.reservations.reap-interval-ms:30000}")
+    public void reapExpired() {
+        long now = System.currentTimeMillis();
+        int reclaimed = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<MedicineHolds> it = stripe.medicines.values().iterator();
+                while (it.hasNext()) {
+                    MedicineHolds holds = it.next();
+                    reclaimed += holds.purgeExpired(now);
+                    if (holds.byUser.isEmpty()) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+        if (reclaimed > 0) {
+            System.out.println("♻️ Reclaimed " + reclaimed + " expired stock holds");
+        }
+    }
+
+    private Stripe stripe(Long medicineId) {
+        return stripes[Long.hashCode(medicineId) & (STRIPES - 1)];
+    }
+
+    @Override
+    public void onCatalogLoaded(Collection<Medicine> medicines) {
+        stock.clear();
+        medicines.forEach(m -> stock.put(m.getId(), m.getStock()));
+    }
+
+    @Override
+    public void onMedicineSaved(Medicine medicine) {
+        stock.put(medicine.getId(), medicine.getStock());
+    }
+
+    @Override
+    public void onMedicineDeleted(Long id) {
+        stock.remove(id);
+        Stripe stripe = stripe(id);
+        synchronized (stripe) {
+            stripe.medicines.remove(id);
+        }
+    }
+
+    private static final class Stripe {
+        final Map<Long, MedicineHolds> medicines = new HashMap<>();
+    }
+
+    /** Holds on one medicine, guarded by its stripe. */
+    private static final class MedicineHolds {
+        final Map<Long, Hold> byUser = new HashMap<>();
+        int total;
+        long nextExpiry = Long.MAX_VALUE;
+
+        void put(Long userId, Hold hold) {
+            remove(userId);
+            byUser.put(userId, hold);
+            total += hold.quantity();
+            nextExpiry = Math.min(nextExpiry, hold.expiresAt());
+        }
+
+        void remove(Long userId) {
+            Hold old = byUser.remove(userId);
+            if (old != null) {
+                total -= old.quantity();
+            }
+        }
+
+        // Only scans when the earliest hold has actually expired
+        int purgeExpired(long now) {
+            if (now < nextExpiry) {
+                return 0;
+            }
+            int purged = 0;
+            long earliest = Long.MAX_VALUE;
+            Iterator<Hold> it = byUser.values().iterator();
+            while (it.hasNext()) {
+                Hold hold = it.next();
+                if (hold.expiresAt() <= now) {
+                    total -= hold.quantity();
+                    it.remove();
+                    purged++;
+                } else {
+                    earliest = Math.min(earliest, hold.expiresAt());
+                }
+            }
+            nextExpiry = earliest;
+            return purged;
+        }
+    }
+
+    private record Hold(int quantity, long expiresAt) {
+    }
+}
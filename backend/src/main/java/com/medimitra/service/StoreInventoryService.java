@@ -0,0 +1,275 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.StoreInventoryItem;
+import com.medimitra.model.Store;
+import com.medimitra.model.StoreInventory;
+import com.medimitra.repository.StoreInventoryRepository;
+import com.medimitra.repository.StoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Per-store inventory and stock-aware order routing. Each store has an in-memory
+ * bitmap of the medicine ids it has in stock, so the stores that could possibly
+ * fulfil a cart are found without a query; quantities are then confirmed for all
+ * candidates with a single grouped lookup on the inventory index.
+ */
+@Service
+public class StoreInventoryService {
+
+    private static final String EMPTIED_SQL = "UPDATE stores SET medicine_count = GREATEST(medicine_count - ?, 0) "
+            + "WHERE id = ?";
+    private static final String INCREMENT_SQL = "UPDATE store_inventory SET quantity = quantity + ? "
+            + "WHERE store_id = ? AND medicine_id = ?";
+    private static final int[] INCREMENT_TYPES = { Types.INTEGER, Types.BIGINT, Types.BIGINT };
+
+    @Autowired
+    private StoreInventoryRepository storeInventoryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // Bit n is set when the store has medicine n in stock; guarded by this
+    private final Map<Long, BitSet> inStock = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAvailability() {
+        try {
+            Map<Long, BitSet> loaded = new HashMap<>();
+            jdbcTemplate.query("SELECT store_id, medicine_id FROM store_inventory WHERE quantity > 0",
+                    rs -> {
+                        loaded.computeIfAbsent(rs.getLong(1), id -> new BitSet()).set(Math.toIntExact(rs.getLong(2)));
+                    });
+            synchronized (this) {
+                inStock.clear();
+                inStock.putAll(loaded);
+            }
+            System.out.println("✅ Store availability loaded for " + loaded.size() + " stores");
+        } catch (Exception e) {
+            System.out.println("⚠️ Could not load store availability: " + e.getMessage());
+        }
+    }
+
+    public List<StoreInventoryItem> getInventory(Long storeId) {
+        return storeInventoryRepository.findByStoreIdOrderByMedicineId(storeId).stream()
+                .map(row -> new StoreInventoryItem(row.getMedicineId(), row.getQuantity()))
+                .toList();
+    }
+
+    /**
+     * Sets absolute quantities for the given medicines at a store, creating rows as
+     * needed; medicines not listed are left alone.
+     */
+    @Transactional
+    public List<StoreInventoryItem> updateInventory(Long storeId, List<StoreInventoryItem> items) {
+        Store store = storeRepository.findById(storeId)
+                .orElseThrow(() -> new RuntimeException("Store not found with id: " + storeId));
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (StoreInventoryItem item : items) {
+            if (item.getMedicineId() == null || item.getQuantity() == null || item.getQuantity() < 0) {
+                throw new RuntimeException("Each item needs a medicineId and a quantity of at least 0");
+            }
+            quantities.put(item.getMedicineId(), item.getQuantity());
+        }
+
+        Map<Long, StoreInventory> existing = storeInventoryRepository
+                .findByStoreIdAndMedicineIdIn(storeId, quantities.keySet()).stream()
+                .collect(Collectors.toMap(StoreInventory::getMedicineId, Function.identity()));
+        List<StoreInventory> rows = new ArrayList<>(quantities.size());
+        quantities.forEach((medicineId, quantity) -> {
+            StoreInventory row = existing.get(medicineId);
+            if (row == null) {
+                row = new StoreInventory(null, storeId, medicineId, quantity, null);
+            }
+            row.setQuantity(quantity);
+            rows.add(row);
+        });
+        storeInventoryRepository.saveAll(rows);
+
+        afterCommit(() -> {
+            synchronized (this) {
+                BitSet bits = inStock.computeIfAbsent(storeId, id -> new BitSet());
+                quantities.forEach((medicineId, quantity) -> bits.set(Math.toIntExact(medicineId), quantity > 0));
+            }
+        });
+        store.setMedicineCount((int) storeInventoryRepository.countByStoreIdAndQuantityGreaterThan(storeId, 0));
+        storeRepository.save(store);
+        // medicineCount is part of the store as served and cached
+        afterCommit(catalogVersion::bumpStores);
+        return getInventory(storeId);
+    }
+
+    /**
+     * Picks the first store (callers pass them nearest first) that stocks the whole
+     * cart and takes the items from its inventory. Returns null when no store can
+     * fulfil the cart on its own.
+     */
+    @Transactional
+    public Store routeOrder(Map<Long, Integer> quantities, List<Store> storesByDistance) {
+        BitSet required = new BitSet();
+        quantities.keySet().forEach(id -> required.set(Math.toIntExact(id)));
+        List<Store> candidates = new ArrayList<>();
+        synchronized (this) {
+            for (Store store : storesByDistance) {
+                BitSet bits = inStock.get(store.getId());
+                if (bits != null) {
+                    BitSet missing = (BitSet) required.clone();
+                    missing.andNot(bits);
+                    if (missing.isEmpty()) {
+                        candidates.add(store);
+                    }
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        Set<Long> confirmed = confirmStores(quantities, candidates);
+        for (Store store : candidates) {
+            if (confirmed.contains(store.getId()) && takeFromStore(store.getId(), quantities)) {
+                return store;
+            }
+        }
+        return null;
+    }
+
+    // One grouped query over the (medicine_id, store_id, quantity) index for all candidates
+    private Set<Long> confirmStores(Map<Long, Integer> quantities, List<Store> candidates) {
+        StringBuilder sql = new StringBuilder("SELECT store_id FROM store_inventory WHERE store_id IN (");
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < candidates.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args.add(candidates.get(i).getId());
+        }
+        sql.append(") AND (");
+        boolean first = true;
+        for (Map.Entry<Long, Integer> entry : quantities.entrySet()) {
+            sql.append(first ? "" : " OR ").append("(medicine_id = ? AND quantity >= ?)");
+            args.add(entry.getKey());
+            args.add(entry.getValue());
+            first = false;
+        }
+        sql.append(") GROUP BY store_id HAVING COUNT(*) = ?");
+        args.add(quantities.size());
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray()));
+    }
+
+    /**
+     * Conditional decrement, like the catalog stock. If a concurrent order got there
+     * first, the rows already taken are put back and false is returned.
+     */
+    private boolean takeFromStore(Long storeId, Map<Long, Integer> quantities) {
+        List<Taken> taken = take(storeId, quantities, false);
+        if (taken.size() < quantities.size()) {
+            if (!taken.isEmpty()) {
+                jdbcTemplate.batchUpdate(INCREMENT_SQL, taken.stream()
+                        .map(row -> new Object[] { quantities.get(row.medicineId()), storeId, row.medicineId() })
+                        .toList(), INCREMENT_TYPES);
+            }
+            return false;
+        }
+        afterTaking(storeId, taken);
+        return true;
+    }
+
+    /**
+     * Takes an order's items from a store that was not picked by {@link #routeOrder},
+     * i.e. chosen by the customer or the nearest store when none stocks the whole cart.
+     * The order goes ahead either way, so rows are drawn down to zero at most.
+     */
+    @Transactional
+    public void drawFromStore(Long storeId, Map<Long, Integer> quantities) {
+        afterTaking(storeId, take(storeId, quantities, true));
+    }
+
+    /**
+     * One statement for all of an order's rows at a store, reporting each row's
+     * quantity before and after. The rows are locked in medicine id order, so
+     * concurrent orders on the same store cannot deadlock. Without drawDown, rows
+     * holding less than requested are left alone and missing from the result.
+     */
+    private List<Taken> take(Long storeId, Map<Long, Integer> quantities, boolean drawDown) {
+        List<Object> args = new ArrayList<>();
+        quantities.forEach((medicineId, quantity) -> {
+            args.add(medicineId);
+            args.add(quantity);
+        });
+        args.add(storeId);
+        String values = String.join(", ", Collections.nCopies(quantities.size(),
+                "(CAST(? AS BIGINT), CAST(? AS INTEGER))"));
+        String sql = "UPDATE store_inventory si SET quantity = "
+                + (drawDown ? "GREATEST(si.quantity - v.requested, 0)" : "si.quantity - v.requested")
+                + " FROM (SELECT i.id, i.quantity AS quantity_before, r.requested FROM store_inventory i "
+                + "JOIN (VALUES " + values + ") AS r(medicine_id, requested) ON i.medicine_id = r.medicine_id "
+                + "WHERE i.store_id = ? ORDER BY i.medicine_id FOR UPDATE OF i) v "
+                + "WHERE si.id = v.id" + (drawDown ? "" : " AND si.quantity >= v.requested")
+                + " RETURNING si.medicine_id, v.quantity_before, si.quantity";
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new Taken(rs.getLong(1), rs.getInt(2), rs.getInt(3)),
+                args.toArray());
+    }
+
+    /**
+     * Only rows that ran out change what the store stocks: medicineCount, the
+     * availability bitmap and, through medicineCount, the store version. An order
+     * that leaves every row above zero costs nothing more.
+     */
+    private void afterTaking(Long storeId, List<Taken> taken) {
+        List<Long> emptied = taken.stream()
+                .filter(row -> row.before() > 0 && row.after() <= 0)
+                .map(Taken::medicineId)
+                .toList();
+        if (emptied.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(EMPTIED_SQL, emptied.size(), storeId);
+        afterCommit(() -> {
+            synchronized (this) {
+                BitSet bits = inStock.get(storeId);
+                if (bits != null) {
+                    emptied.forEach(id -> bits.clear(Math.toIntExact(id)));
+                }
+            }
+        });
+        afterCommit(catalogVersion::bumpStores);
+    }
+
+    private record Taken(long medicineId, int before, int after) {
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -16,12 +16,26 @@ public class StoreService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private CatalogVersion catalogVersion;
+
+    // Active stores as of a store version; any store write bumps the version and so invalidates them
+    private volatile ActiveStores activeStores;
+
     public List<Store> getAllStores() {
         return storeRepository.findAll();
     }
 
+    /** Cached until the next store write, since every checkout routes through this list. */
     public List<Store> getActiveStores() {
-        return storeRepository.findByStatus("Active");
+        // Version read before the query, so a write racing with it only causes an extra reload
+        String version = catalogVersion.storeETag();
+        ActiveStores cached = activeStores;
+        if (cached == null || !cached.version().equals(version)) {
+            cached = new ActiveStores(version, List.copyOf(storeRepository.findByStatus("Active")));
+            activeStores = cached;
+        }
+        return cached.stores();
     }
 
     public Store getStoreById(Long id) {
@@ -38,7 +52,9 @@ public class StoreService {
     }
 
     public Store createStore(Store store) {
-        return storeRepository.save(store);
+        Store saved = storeRepository.save(store);
+        catalogVersion.bumpStores();
+        return saved;
     }
 
     public Store updateStore(Long id, Store storeDetails) {
@@ -61,7 +77,9 @@ public class StoreService {
             store.setPassword(passwordEncoder.encode(storeDetails.getPassword()));
         }
         
-        return storeRepository.save(store);
+        Store saved = storeRepository.save(store);
+        catalogVersion.bumpStores();
+        return saved;
     }
     
     public Store updateStoreCredentials(Long id, String email, String password) {
@@ -75,12 +93,15 @@ public class StoreService {
             store.setPassword(passwordEncoder.encode(password));
         }
         
-        return storeRepository.save(store);
+        Store saved = storeRepository.save(store);
+        catalogVersion.bumpStores();
+        return saved;
     }
 
     public void deleteStore(Long id) {
         Store store = getStoreById(id);
         storeRepository.delete(store);
+        catalogVersion.bumpStores();
     }
 
     public long getTotalStoresCount() {
@@ -88,6 +109,9 @@ public class StoreService {
     }
 
     public long getActiveStoresCount() {
-        return storeRepository.findByStatus("Active").size();
+        return getActiveStores().size();
+    }
+
+    private record ActiveStores(String version, List<Store> stores) {
     }
 }
@@ -0,0 +1,158 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Cart;
+import com.medimitra.model.CartItem;
+import com.medimitra.model.Medicine;
+import com.medimitra.model.User;
+import com.medimitra.repository.CartRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Hammers a write-behind store that can hold only one cart, so nearly every change
+ * races with the eviction of the cart it was made to. Every change must still reach
+ * the (in-memory stand-in for the) database.
+ */
+class CartWriteBehindStoreTest {
+
+    private static final int USERS = 3;
+    private static final int THREADS = 4;
+    private static final int CHANGES_PER_THREAD = 2_000;
+
+    private final FakeDatabase database = new FakeDatabase();
+    private final Medicine medicine = new Medicine();
+    private final List<User> users = new ArrayList<>();
+
+    @Test
+    void keepsChangesMadeWhileTheCartIsEvicted() throws Exception {
+        CartWriteBehindStore store = new CartWriteBehindStore(true, 1, mock(PlatformTransactionManager.class));
+        CartRepository cartRepository = mock(CartRepository.class);
+        when(cartRepository.findWithItemsByUser(any())).thenAnswer(call -> database.read(call.getArgument(0)));
+        ReflectionTestUtils.setField(store, "cartRepository", cartRepository);
+        ReflectionTestUtils.setField(store, "jdbcTemplate", database);
+
+        medicine.setId(1L);
+        for (long id = 1; id <= USERS; id++) {
+            User user = new User();
+            user.setId(id);
+            users.add(user);
+        }
+
+        AtomicIntegerArray expected = new AtomicIntegerArray(USERS + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Random random = new Random(t);
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < CHANGES_PER_THREAD; i++) {
+                    User user = users.get(random.nextInt(USERS));
+                    store.modify(user, state -> {
+                        state.setQuantity(medicine, state.quantityOf(medicine.getId()) + 1);
+                        return null;
+                    });
+                    expected.incrementAndGet(user.getId().intValue());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        store.flushAll();
+
+        for (User user : users) {
+            assertThat(database.quantityOf(user.getId()))
+                    .as("quantity in the cart of user %d", user.getId())
+                    .isEqualTo(expected.get(user.getId().intValue()));
+        }
+    }
+
+    /** Just enough of carts/cart_items for the store's statements; the cart id is the user id. */
+    private final class FakeDatabase extends JdbcTemplate {
+        // Item id -> { cart id, medicine id, quantity }
+        private final Map<Long, long[]> items = new HashMap<>();
+        private long nextItemId;
+
+        synchronized Optional<Cart> read(User user) {
+            Cart cart = new Cart();
+            cart.setId(user.getId());
+            cart.setUser(user);
+            items.forEach((id, row) -> {
+                if (row[0] == user.getId()) {
+                    cart.getItems().add(new CartItem(id, cart, medicine, (int) row[2]));
+                }
+            });
+            return Optional.of(cart);
+        }
+
+        synchronized long quantityOf(Long cartId) {
+            return items.values().stream().filter(row -> row[0] == cartId).mapToLong(row -> row[2]).sum();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            return (T) args[0];
+        }
+
+        @Override
+        public synchronized int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            for (Object[] args : batchArgs) {
+                if (sql.startsWith("DELETE")) {
+                    items.remove((Long) args[0]);
+                } else if (sql.startsWith("UPDATE cart_items")) {
+                    items.get((Long) args[1])[2] = (Integer) args[0];
+                } else if (sql.startsWith("INSERT")) {
+                    long cartId = (Long) args[0];
+                    long medicineId = (Long) args[1];
+                    long[] existing = items.values().stream()
+                            .filter(row -> row[0] == cartId && row[1] == medicineId).findFirst().orElse(null);
+                    if (existing != null) {
+                        existing[2] = (Integer) args[2];
+                    } else {
+                        items.put(++nextItemId, new long[] { cartId, medicineId, (Integer) args[2] });
+                    }
+                }
+            }
+            return new int[batchArgs.size()];
+        }
+
+        @Override
+        public synchronized void query(String sql, RowCallbackHandler handler, Object... args) {
+            List<Object> cartIds = List.of(args);
+            try {
+                for (Map.Entry<Long, long[]> item : items.entrySet()) {
+                    if (cartIds.contains(item.getValue()[0])) {
+                        ResultSet row = mock(ResultSet.class);
+                        when(row.getLong(1)).thenReturn(item.getKey());
+                        when(row.getLong(2)).thenReturn(item.getValue()[0]);
+                        when(row.getLong(3)).thenReturn(item.getValue()[1]);
+                        handler.processRow(row);
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
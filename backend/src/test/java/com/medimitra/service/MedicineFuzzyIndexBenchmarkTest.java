@@ -0,0 +1,93 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Builds the typo-tolerant index over a synthetic 100k-SKU catalog and times
+ * misspelled queries: dropped letters, wrong letters and swapped neighbours.
+ * Every query must still find its medicine. As with the exact-index benchmark,
+ * the latency bound only catches order-of-magnitude regressions.
+ */
+class MedicineFuzzyIndexBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final long MEDIAN_LIMIT_MICROS = 50_000;
+
+    // Misspelling -> the salt it is meant to find
+    private static final Map<String, String> TYPOS = Map.ofEntries(
+            Map.entry("amoxicilin", "Amoxicillin"),
+            Map.entry("cetrizine", "Cetirizine"),
+            Map.entry("paracetmol", "Paracetamol"),
+            Map.entry("azithromycn", "Azithromycin"),
+            Map.entry("montelukst", "Montelukast"),
+            Map.entry("ibuprfoen", "Ibuprofen"),
+            Map.entry("metfromin", "Metformin"),
+            Map.entry("omeprazloe", "Omeprazole"),
+            Map.entry("doxycylcine", "Doxycycline"),
+            Map.entry("diclofenca", "Diclofenac"),
+            Map.entry("atorvastain", "Atorvastatin"),
+            Map.entry("ondansteron", "Ondansetron"));
+
+    private static final MedicineFuzzyIndex index = new MedicineFuzzyIndex();
+
+    @BeforeAll
+    static void buildIndex() {
+        List<Medicine> catalog = SyntheticCatalog.build(CATALOG_SIZE, new Random(42));
+        long start = System.nanoTime();
+        index.onCatalogLoaded(catalog);
+        System.out.printf("📊 Fuzzy index built for %d medicines in %d ms%n", CATALOG_SIZE,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Test
+    void misspellingsFindTheIntendedMedicine() {
+        TYPOS.forEach((typo, salt) -> assertThat(index.search(typo))
+                .as(typo)
+                .isNotEmpty()
+                .allSatisfy(medicine -> assertThat(medicine.getSalt()).isEqualTo(salt)));
+    }
+
+    @Test
+    void misspellingWithStrengthNarrowsTheMatch() {
+        assertThat(index.search("paracetmol 500mg"))
+                .isNotEmpty()
+                .allSatisfy(medicine -> assertThat(medicine.getName()).startsWith("Paracetamol 500mg"));
+    }
+
+    @Test
+    void reportsQueryLatency() {
+        String[] queries = TYPOS.keySet().stream().sorted().toArray(String[]::new);
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (String query : queries) {
+                index.search(query);
+            }
+        }
+
+        long[] micros = new long[MEASURED_ROUNDS * queries.length];
+        int n = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (String query : queries) {
+                long start = System.nanoTime();
+                index.search(query);
+                micros[n++] = (System.nanoTime() - start) / 1_000;
+            }
+        }
+        Arrays.sort(micros);
+        long median = micros[micros.length / 2];
+        System.out.printf("📊 %d misspelled searches over %d medicines: p50 %d µs, p90 %d µs, p99 %d µs, max %d µs%n",
+                micros.length, CATALOG_SIZE, median, micros[micros.length * 90 / 100],
+                micros[micros.length * 99 / 100], micros[micros.length - 1]);
+
+        assertThat(median).isLessThan(MEDIAN_LIMIT_MICROS);
+    }
+}
@@ -0,0 +1,48 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MedicineFuzzyIndexTest {
+
+    private final MedicineFuzzyIndex index = new MedicineFuzzyIndex();
+
+    @BeforeEach
+    void loadCatalog() {
+        index.onCatalogLoaded(List.of(medicine(1L, "Taxim", "Cefotaxime"), medicine(2L, "Crocin", "Paracetamol"),
+                medicine(3L, "Zyrtec", "Cetirizine")));
+    }
+
+    @Test
+    void findsOneSwapInAFiveLetterWord() {
+        // "taxim" -> "taixm" keeps only $ta of its five padded trigrams
+        assertThat(index.search("taixm")).extracting(Medicine::getId).containsExactly(1L);
+    }
+
+    @Test
+    void findsOneSwapInASixLetterWord() {
+        // "crocin" -> "crcoin" keeps $cr and in$ of its six padded trigrams
+        assertThat(index.search("crcoin")).extracting(Medicine::getId).containsExactly(2L);
+    }
+
+    @Test
+    void swapCountsAsOneEdit() {
+        assertThat(MedicineFuzzyIndex.editDistance("taixm", "taxim", 1)).isEqualTo(1);
+        assertThat(MedicineFuzzyIndex.editDistance("crcoin", "crocin", 1)).isEqualTo(1);
+    }
+
+    private static Medicine medicine(Long id, String name, String salt) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setName(name);
+        medicine.setSalt(salt);
+        medicine.setPrice(BigDecimal.TEN);
+        medicine.setStock(10);
+        return medicine;
+    }
+}
@@ -0,0 +1,87 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static com.medimitra.service.SyntheticCatalog.pick;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Builds the exact-token search index over a synthetic 100k-SKU catalog and reports query
+ * latency. The catalog and the queries come from a fixed seed, so runs are
+ * comparable; the latency bound is loose enough for a shared CI machine and
+ * only catches order-of-magnitude regressions.
+ */
+class MedicineSearchIndexBenchmarkTest {
+
+    private static final int CATALOG_SIZE = 100_000;
+    private static final int WARMUP_QUERIES = 300;
+    private static final int MEASURED_QUERIES = 1_000;
+    private static final long MEDIAN_LIMIT_MICROS = 50_000;
+
+    private static final MedicineSearchIndex index = new MedicineSearchIndex();
+    private static final List<String> queries = new ArrayList<>();
+
+    @BeforeAll
+    static void buildIndex() {
+        Random random = new Random(42);
+        List<Medicine> catalog = SyntheticCatalog.build(CATALOG_SIZE, random);
+
+        long start = System.nanoTime();
+        index.onCatalogLoaded(catalog);
+        System.out.printf("📊 Search index built for %d medicines in %d ms%n", CATALOG_SIZE,
+                (System.nanoTime() - start) / 1_000_000);
+
+        // Typed-as-you-go prefixes, whole words, two-token queries and rare brand lookups
+        for (int i = 0; i < WARMUP_QUERIES + MEASURED_QUERIES; i++) {
+            String stem = pick(random, SyntheticCatalog.NAME_STEMS).toLowerCase(Locale.ROOT);
+            queries.add(switch (i % 4) {
+                case 0 -> stem.substring(0, 3 + random.nextInt(stem.length() - 3));
+                case 1 -> stem;
+                case 2 -> stem + " " + pick(random, SyntheticCatalog.STRENGTHS);
+                default -> "brand" + (1 + random.nextInt(CATALOG_SIZE));
+            });
+        }
+    }
+
+    @Test
+    void findsAnExactBrandFirst() {
+        List<Medicine> results = index.search("Brand4242");
+        assertThat(results).isNotEmpty();
+        assertThat(results.get(0).getId()).isEqualTo(4242L);
+    }
+
+    @Test
+    void reportsQueryLatency() {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.search(queries.get(i));
+        }
+
+        long[] micros = new long[MEASURED_QUERIES];
+        long hits = 0;
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            hits += index.search(queries.get(WARMUP_QUERIES + i)).size();
+            micros[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        long median = percentile(micros, 50);
+        System.out.printf("📊 %d searches over %d medicines: p50 %d µs, p90 %d µs, p99 %d µs, max %d µs "
+                        + "(%d results on average)%n", MEASURED_QUERIES, CATALOG_SIZE, median,
+                percentile(micros, 90), percentile(micros, 99), micros[micros.length - 1], hits / MEASURED_QUERIES);
+
+        assertThat(hits).isPositive();
+        assertThat(median).isLessThan(MEDIAN_LIMIT_MICROS);
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percentile / 100)];
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.medimitra.service;
+
+import com.medimitra.dto.MedicineSuggestion;
+import com.medimitra.model.Medicine;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static com.medimitra.service.SyntheticCatalog.pick;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MedicineSuggestIndexTest {
+
+    @Test
+    void seesRenamesAndDeletesRightAway() {
+        MedicineSuggestIndex index = new MedicineSuggestIndex();
+        index.onCatalogLoaded(List.of(medicine(1L, "Crocin", "Paracetamol"), medicine(2L, "Calpol", "Paracetamol")));
+
+        index.onMedicineSaved(medicine(1L, "Dolo", "Paracetamol"));
+        assertThat(index.suggest("cro", 10)).isEmpty();
+        assertThat(index.suggest("dol", 10)).extracting(MedicineSuggestion::getName).containsExactly("Dolo");
+        assertThat(index.suggest("para", 10)).extracting(MedicineSuggestion::getId).containsExactly(1L, 2L);
+
+        index.onMedicineDeleted(1L);
+        assertThat(index.suggest("para", 10)).extracting(MedicineSuggestion::getId).containsExactly(2L);
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFullLoad() {
+        Random random = new Random(7);
+        Map<Long, Medicine> catalog = new HashMap<>();
+        SyntheticCatalog.build(2_000, random).forEach(m -> catalog.put(m.getId(), m));
+        MedicineSuggestIndex incremental = new MedicineSuggestIndex();
+        incremental.onCatalogLoaded(catalog.values());
+
+        for (int i = 0; i < 500; i++) {
+            long id = 1 + random.nextInt(2_500);
+            if (random.nextInt(4) == 0) {
+                catalog.remove(id);
+                incremental.onMedicineDeleted(id);
+            } else {
+                Medicine medicine = medicine(id, pick(random, SyntheticCatalog.NAME_STEMS) + " " + i,
+                        pick(random, SyntheticCatalog.NAME_STEMS));
+                catalog.put(id, medicine);
+                incremental.onMedicineSaved(medicine);
+            }
+        }
+
+        MedicineSuggestIndex reloaded = new MedicineSuggestIndex();
+        reloaded.onCatalogLoaded(new ArrayList<>(catalog.values()));
+        for (String stem : SyntheticCatalog.NAME_STEMS) {
+            String prefix = stem.substring(0, 3).toLowerCase(Locale.ROOT);
+            assertThat(incremental.suggest(prefix, 50)).isEqualTo(reloaded.suggest(prefix, 50));
+        }
+    }
+
+    private static Medicine medicine(Long id, String name, String salt) {
+        Medicine medicine = new Medicine();
+        medicine.setId(id);
+        medicine.setName(name);
+        medicine.setSalt(salt);
+        medicine.setPrice(BigDecimal.TEN);
+        medicine.setStock(10);
+        return medicine;
+    }
+}
@@ -0,0 +1,51 @@
+package com.medimitra.service;
+
+import com.medimitra.model.Medicine;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeded synthetic catalog for the index benchmarks: a few salts shared by many
+ * SKUs, plus a per-SKU brand token, so the vocabulary has many rare words and a
+ * few very common ones.
+ */
+final class SyntheticCatalog {
+
+    static final String[] NAME_STEMS = { "Paracetamol", "Ibuprofen", "Amoxicillin", "Azithromycin",
+            "Cetirizine", "Metformin", "Atorvastatin", "Omeprazole", "Pantoprazole", "Losartan", "Amlodipine",
+            "Levocetirizine", "Montelukast", "Doxycycline", "Ciprofloxacin", "Diclofenac", "Aceclofenac",
+            "Ranitidine", "Domperidone", "Ondansetron" };
+    static final String[] FORMS = { "Tablet", "Capsule", "Syrup", "Suspension", "Gel", "Drops" };
+    static final String[] STRENGTHS = { "5mg", "10mg", "20mg", "50mg", "100mg", "250mg", "500mg", "650mg" };
+    static final String[] MANUFACTURERS = { "Cipla", "Sun Pharma", "Dr Reddys", "Lupin", "Mankind",
+            "Alkem", "Torrent", "Zydus", "Glenmark", "Intas" };
+    static final String[] CATEGORIES = { "Pain Relief", "Antibiotic", "Allergy", "Diabetes", "Cardiac",
+            "Gastro", "Respiratory" };
+
+    private SyntheticCatalog() {
+    }
+
+    /** Medicines with ids 1..size; the salt is the name's first word. */
+    static List<Medicine> build(int size, Random random) {
+        List<Medicine> catalog = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            String stem = pick(random, NAME_STEMS);
+            Medicine medicine = new Medicine();
+            medicine.setId(id);
+            medicine.setName(stem + " " + pick(random, STRENGTHS) + " " + pick(random, FORMS) + " Brand" + id);
+            medicine.setSalt(stem);
+            medicine.setManufacturer(pick(random, MANUFACTURERS));
+            medicine.setCategory(pick(random, CATEGORIES));
+            medicine.setPrice(BigDecimal.valueOf(1 + random.nextInt(50_000), 2));
+            medicine.setStock(random.nextInt(500));
+            catalog.add(medicine);
+        }
+        return catalog;
+    }
+
+    static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}